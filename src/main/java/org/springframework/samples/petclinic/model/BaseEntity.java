@@ -16,14 +16,28 @@
 package org.springframework.samples.petclinic.model;
 
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.MappedSuperclass;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 /**
  * Simple JavaBean domain object with an id property. Used as a base class for objects
  * needing this property.
+ * <p>
+ * Ids come from one sequence per entity, such as {@code owner_seq}, or a table of that
+ * name on databases without sequences. Each call reserves a block of
+ * {@value #ID_BLOCK_SIZE} ids that are then handed out in memory, so that new entities
+ * get their id without a round trip and Hibernate can batch their inserts.
+ * </p>
  *
  * @author Ken Krebs
  * @author Juergen Hoeller
@@ -31,8 +45,19 @@ import java.io.Serializable;
 @MappedSuperclass
 public class BaseEntity implements Serializable {
 
+	/**
+	 * Increment of the id sequences, which must match their definition in the schema.
+	 */
+	public static final int ID_BLOCK_SIZE = 50;
+
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(generator = "pooled")
+	@GenericGenerator(name = "pooled", strategy = "enhanced-sequence",
+			parameters = { @Parameter(name = SequenceStyleGenerator.CONFIG_PREFER_SEQUENCE_PER_ENTITY, value = "true"),
+					@Parameter(name = SequenceStyleGenerator.CONFIG_SEQUENCE_PER_ENTITY_SUFFIX, value = "_seq"),
+					@Parameter(name = SequenceStyleGenerator.INITIAL_PARAM, value = "100"),
+					@Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "" + ID_BLOCK_SIZE),
+					@Parameter(name = SequenceStyleGenerator.OPT_PARAM, value = "pooled") })
 	private Integer id;
 
 	public Integer getId() {
@@ -47,4 +72,26 @@ public class BaseEntity implements Serializable {
 		return this.id == null;
 	}
 
+	/**
+	 * Put entities loaded by id, for instance with an {@code IN} query, in the order of
+	 * the ids they were loaded by. Ids no entity was found for are left out.
+	 * @param entities the entities loaded, in any order
+	 * @param ids the ids in the order wanted
+	 * @return the entities in the order of their ids
+	 */
+	public static <T extends BaseEntity> List<T> orderByIds(Collection<T> entities, List<Integer> ids) {
+		Map<Integer, T> byId = new HashMap<>();
+		for (T entity : entities) {
+			byId.put(entity.getId(), entity);
+		}
+		List<T> ordered = new ArrayList<>(ids.size());
+		for (Integer id : ids) {
+			T entity = byId.get(id);
+			if (entity != null) {
+				ordered.add(entity);
+			}
+		}
+		return ordered;
+	}
+
 }
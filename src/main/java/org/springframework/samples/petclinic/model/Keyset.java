@@ -0,0 +1,93 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of a {@link Person} in a list ordered by last name and id. Lists are paged by
+ * seeking past such a position instead of skipping a number of rows, which keeps deep
+ * pages as cheap as the first one.
+ * <p>
+ * Positions travel through the web tier as opaque tokens, see {@link #encode()}.
+ * </p>
+ */
+public final class Keyset {
+
+	/**
+	 * Position before the first person of any list.
+	 */
+	public static final Keyset FIRST = new Keyset("", 0);
+
+	private static final char SEPARATOR = ':';
+
+	private final String lastName;
+
+	private final int id;
+
+	private Keyset(String lastName, int id) {
+		this.lastName = lastName;
+		this.id = id;
+	}
+
+	/**
+	 * Return the position of the given person.
+	 * @param person the person to position on
+	 * @return the position of the person
+	 */
+	public static Keyset of(Person person) {
+		return new Keyset(person.getLastName(), person.getId());
+	}
+
+	/**
+	 * Decode a token produced by {@link #encode()}. Missing or malformed tokens decode to
+	 * {@link #FIRST} so that a tampered link simply starts over.
+	 * @param token the token to decode, may be {@code null}
+	 * @return the decoded position
+	 */
+	public static Keyset decode(String token) {
+		if (token == null || token.isEmpty()) {
+			return FIRST;
+		}
+		try {
+			String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			int separator = value.indexOf(SEPARATOR);
+			return new Keyset(value.substring(separator + 1), Integer.parseInt(value.substring(0, separator)));
+		}
+		catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+			return FIRST;
+		}
+	}
+
+	/**
+	 * Encode this position as a URL safe token.
+	 * @return the token
+	 */
+	public String encode() {
+		String value = this.id + String.valueOf(SEPARATOR) + this.lastName;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public String getLastName() {
+		return this.lastName;
+	}
+
+	public int getId() {
+		return this.id;
+	}
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A window of {@link Person}s read by seeking past a {@link Keyset}, together with the
+ * tokens leading to the neighbouring windows.
+ *
+ * @param <T> the type of person in the window
+ */
+public class KeysetSlice<T extends Person> {
+
+	private final List<T> content;
+
+	private final Keyset previous;
+
+	private final Keyset next;
+
+	private KeysetSlice(List<T> content, boolean hasPrevious, boolean hasNext) {
+		this.content = Collections.unmodifiableList(content);
+		this.previous = hasPrevious && !content.isEmpty() ? Keyset.of(content.get(0)) : null;
+		this.next = hasNext && !content.isEmpty() ? Keyset.of(content.get(content.size() - 1)) : null;
+	}
+
+	/**
+	 * Build a window from rows read in seek direction. Callers read one row more than the
+	 * window size to find out whether there is anything beyond the window.
+	 * @param rows the rows read, at most {@code size + 1} of them
+	 * @param size the number of rows shown in a window
+	 * @param backward whether the rows were read backwards, starting before a cursor
+	 * @param fromCursor whether reading started at a cursor rather than at the very start
+	 * @return the window in ascending order
+	 */
+	public static <T extends Person> KeysetSlice<T> of(List<T> rows, int size, boolean backward, boolean fromCursor) {
+		boolean more = rows.size() > size;
+		List<T> content = new ArrayList<>(more ? rows.subList(0, size) : rows);
+		if (backward) {
+			Collections.reverse(content);
+			return new KeysetSlice<>(content, more, true);
+		}
+		return new KeysetSlice<>(content, fromCursor, more);
+	}
+
+	public List<T> getContent() {
+		return this.content;
+	}
+
+	public boolean hasPrevious() {
+		return this.previous != null;
+	}
+
+	public boolean hasNext() {
+		return this.next != null;
+	}
+
+	/**
+	 * @return the token to read the preceding window with, or {@code null} at the start
+	 */
+	public String getPreviousToken() {
+		return this.previous != null ? this.previous.encode() : null;
+	}
+
+	/**
+	 * @return the token to read the following window with, or {@code null} at the end
+	 */
+	public String getNextToken() {
+		return this.next != null ? this.next.encode() : null;
+	}
+
+}
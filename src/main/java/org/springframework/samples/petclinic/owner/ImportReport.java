@@ -0,0 +1,83 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+/**
+ * Counts of an {@link OwnerImport}: the lines read, the owners and pets saved and the
+ * lines rejected.
+ */
+public class ImportReport {
+
+	private int lines;
+
+	private int owners;
+
+	private int pets;
+
+	private int rejected;
+
+	private String errorReport;
+
+	void line() {
+		this.lines++;
+	}
+
+	void owner() {
+		this.owners++;
+	}
+
+	void pet() {
+		this.pets++;
+	}
+
+	void reject() {
+		this.rejected++;
+	}
+
+	public int getLines() {
+		return this.lines;
+	}
+
+	public int getOwners() {
+		return this.owners;
+	}
+
+	public int getPets() {
+		return this.pets;
+	}
+
+	public int getRejected() {
+		return this.rejected;
+	}
+
+	/**
+	 * Return the path the rejected lines can be downloaded from, if any were rejected.
+	 */
+	public String getErrorReport() {
+		return this.errorReport;
+	}
+
+	void setErrorReport(String errorReport) {
+		this.errorReport = errorReport;
+	}
+
+	@Override
+	public String toString() {
+		return this.lines + " lines: " + this.owners + " owners and " + this.pets + " pets saved, " + this.rejected
+				+ " lines rejected";
+	}
+
+}
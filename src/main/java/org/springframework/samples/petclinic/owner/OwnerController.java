@@ -15,12 +15,22 @@
  */
 package org.springframework.samples.petclinic.owner;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
 import javax.validation.Valid;
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.samples.petclinic.model.Keyset;
+import org.springframework.samples.petclinic.model.KeysetSlice;
+import org.springframework.samples.petclinic.visit.Visit;
 import org.springframework.samples.petclinic.visit.VisitRepository;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -31,6 +41,7 @@ import org.springframework.web.bind.annotation.InitBinder;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.ModelAndView;
 
 /**
@@ -44,13 +55,35 @@ class OwnerController {
 
 	private static final String VIEWS_OWNER_CREATE_OR_UPDATE_FORM = "owners/createOrUpdateOwnerForm";
 
+	private static final int PAGE_SIZE = 5;
+
+	private static final int VISITS_PAGE_SIZE = 10;
+
 	private final OwnerRepository owners;
 
 	private final VisitRepository visits;
 
-	public OwnerController(OwnerRepository clinicService, VisitRepository visits) {
+	private final OwnerCountService counts;
+
+	private final OwnerSearchIndex searchIndex;
+
+	private final OwnerTypeahead typeahead;
+
+	private final boolean keysetPagination;
+
+	private final boolean progressiveDetails;
+
+	public OwnerController(OwnerRepository clinicService, VisitRepository visits, OwnerCountService counts,
+			Optional<OwnerSearchIndex> searchIndex, OwnerTypeahead typeahead,
+			@Value("${petclinic.pagination.keyset:false}") boolean keysetPagination,
+			@Value("${petclinic.owners.progressive-details:false}") boolean progressiveDetails) {
 		this.owners = clinicService;
 		this.visits = visits;
+		this.counts = counts;
+		this.searchIndex = searchIndex.orElse(null);
+		this.typeahead = typeahead;
+		this.keysetPagination = keysetPagination;
+		this.progressiveDetails = progressiveDetails;
 	}
 
 	@InitBinder
@@ -72,6 +105,7 @@ class OwnerController {
 		}
 		else {
 			this.owners.save(owner);
+			ownerSaved(owner);
 			return "redirect:/owners/" + owner.getId();
 		}
 	}
@@ -83,8 +117,9 @@ class OwnerController {
 	}
 
 	@GetMapping("/owners")
-	public String processFindForm(@RequestParam(defaultValue = "1") int page, Owner owner, BindingResult result,
-			Model model) {
+	public String processFindForm(@RequestParam(defaultValue = "1") int page,
+			@RequestParam(required = false) String after, @RequestParam(required = false) String before, Owner owner,
+			BindingResult result, Model model) {
 
 		// allow parameterless GET request for /owners to return all records
 		if (owner.getLastName() == null) {
@@ -93,13 +128,17 @@ class OwnerController {
 
 		// find owners by last name
 		String lastName = owner.getLastName();
-		Page<Owner> ownersResults = findPaginatedForOwnersLastName(page, lastName);
+		// the search index seeks to a position, it cannot cheaply skip to a page number
+		if (this.keysetPagination || this.searchIndex != null || after != null || before != null) {
+			return processKeysetFind(lastName, after, before, result, model);
+		}
+		Slice<Owner> ownersResults = findPaginatedForOwnersLastName(page, lastName);
 		if (ownersResults.isEmpty()) {
 			// no owners found
 			result.rejectValue("lastName", "notFound", "not found");
 			return "owners/findOwners";
 		}
-		else if (ownersResults.getTotalElements() == 1) {
+		else if (page == 1 && ownersResults.getNumberOfElements() == 1 && !ownersResults.hasNext()) {
 			// 1 owner found
 			owner = ownersResults.iterator().next();
 			return "redirect:/owners/" + owner.getId();
@@ -111,27 +150,74 @@ class OwnerController {
 		}
 	}
 
-	private String addPaginationModel(int page, Model model, String lastName, Page<Owner> paginated) {
-		// model.addAttribute("listOwners", paginated);
+	private String addPaginationModel(int page, Model model, String lastName, Slice<Owner> paginated) {
+		// the count is only needed for the pager, and is cached per last name prefix
+		OwnerCount totalItems = this.counts.countByLastName(lastName);
+		int totalPages = Math.max(totalItems.getPages(PAGE_SIZE), paginated.hasNext() ? page + 1 : page);
 		List<Owner> listOwners = paginated.getContent();
 		model.addAttribute("currentPage", page);
-		model.addAttribute("totalPages", paginated.getTotalPages());
-		model.addAttribute("totalItems", paginated.getTotalElements());
+		model.addAttribute("totalPages", totalPages);
+		model.addAttribute("totalItems", totalItems);
+		model.addAttribute("hasNext", paginated.hasNext());
 		model.addAttribute("listOwners", listOwners);
 		return "owners/ownersList";
 	}
 
-	private Page<Owner> findPaginatedForOwnersLastName(int page, String lastname) {
+	private Slice<Owner> findPaginatedForOwnersLastName(int page, String lastname) {
 
-		int pageSize = 5;
-		Pageable pageable = PageRequest.of(page - 1, pageSize);
-		return owners.findByLastName(lastname, pageable);
+		Pageable pageable = PageRequest.of(page - 1, PAGE_SIZE);
+		// page through the ids alone, then load the owners of the page with their pets
+		Slice<Integer> ids = this.owners.findIdSliceByLastName(lastname, pageable);
+		return new SliceImpl<>(this.owners.findWithPetsInOrder(ids.getContent()), pageable, ids.hasNext());
+
+	}
+
+	private void ownerSaved(Owner owner, String... previousLastNames) {
+		if (this.searchIndex != null) {
+			this.searchIndex.put(owner);
+		}
+		this.typeahead.ownerChanged(owner.getLastName());
+		this.typeahead.ownerChanged(previousLastNames);
+		this.counts.ownerChanged(owner.getLastName());
+		this.counts.ownerChanged(previousLastNames);
+	}
+
+	private String processKeysetFind(String lastName, String after, String before, BindingResult result, Model model) {
+		KeysetSlice<Owner> slice = findSliceForOwnersLastName(lastName, after, before);
+		boolean firstWindow = after == null && before == null;
+		if (firstWindow && slice.getContent().isEmpty()) {
+			// no owners found
+			result.rejectValue("lastName", "notFound", "not found");
+			return "owners/findOwners";
+		}
+		else if (firstWindow && slice.getContent().size() == 1 && !slice.hasNext()) {
+			// 1 owner found
+			return "redirect:/owners/" + slice.getContent().get(0).getId();
+		}
+		model.addAttribute("keyset", slice);
+		model.addAttribute("listOwners", slice.getContent());
+		return "owners/ownersList";
+	}
 
+	private KeysetSlice<Owner> findSliceForOwnersLastName(String lastName, String after, String before) {
+		// read one owner more than shown to find out whether there is a next window
+		Pageable limit = PageRequest.of(0, PAGE_SIZE + 1);
+		if (before != null) {
+			Keyset position = Keyset.decode(before);
+			List<Integer> ids = this.searchIndex != null
+					? this.searchIndex.findIdsBefore(lastName, position, PAGE_SIZE + 1)
+					: this.owners.findIdsByLastNameBefore(lastName, position.getLastName(), position.getId(), limit);
+			return KeysetSlice.of(this.owners.findWithPetsInOrder(ids), PAGE_SIZE, true, true);
+		}
+		Keyset position = Keyset.decode(after);
+		List<Integer> ids = this.searchIndex != null ? this.searchIndex.findIdsAfter(lastName, position, PAGE_SIZE + 1)
+				: this.owners.findIdsByLastNameAfter(lastName, position.getLastName(), position.getId(), limit);
+		return KeysetSlice.of(this.owners.findWithPetsInOrder(ids), PAGE_SIZE, false, after != null);
 	}
 
 	@GetMapping("/owners/{ownerId}/edit")
 	public String initUpdateOwnerForm(@PathVariable("ownerId") int ownerId, Model model) {
-		Owner owner = this.owners.findById(ownerId);
+		Owner owner = this.owners.findWithoutPetsById(ownerId);
 		model.addAttribute(owner);
 		return VIEWS_OWNER_CREATE_OR_UPDATE_FORM;
 	}
@@ -144,7 +230,9 @@ class OwnerController {
 		}
 		else {
 			owner.setId(ownerId);
+			String previousLastName = this.owners.findLastNameById(ownerId);
 			this.owners.save(owner);
+			ownerSaved(owner, previousLastName);
 			return "redirect:/owners/{ownerId}";
 		}
 	}
@@ -158,11 +246,65 @@ class OwnerController {
 	public ModelAndView showOwner(@PathVariable("ownerId") int ownerId) {
 		ModelAndView mav = new ModelAndView("owners/ownerDetails");
 		Owner owner = this.owners.findById(ownerId);
-		for (Pet pet : owner.getPets()) {
-			pet.setVisitsInternal(visits.findByPetId(pet.getId()));
+		if (!this.progressiveDetails) {
+			loadVisits(owner.getPets());
 		}
 		mav.addObject(owner);
+		mav.addObject("progressive", this.progressiveDetails);
 		return mav;
 	}
 
+	/**
+	 * The visits table of a pet, as an HTML fragment loaded by the owner details page
+	 * when {@code petclinic.owners.progressive-details} is {@code true}. The response
+	 * carries an ETag of the visits shown, so a page reloaded without changes gets an
+	 * empty 304 instead of the rendered table.
+	 * @param ownerId the id of the owner of the pet
+	 * @param petId the id of the pet
+	 * @param page the window of visits to show, latest first
+	 * @return the fragment view, or {@code null} if the visits are not modified
+	 */
+	@GetMapping("/owners/{ownerId}/pets/{petId}/visits")
+	public String showPetVisits(@PathVariable("ownerId") int ownerId, @PathVariable("petId") int petId,
+			@RequestParam(name = "page", defaultValue = "0") int page, WebRequest request, Model model) {
+		Slice<VisitRepository.PetVisit> visits = this.visits.findSliceByPetId(ownerId, petId,
+				PageRequest.of(Math.max(page, 0), VISITS_PAGE_SIZE));
+		if (request.checkNotModified(etag(visits))) {
+			return null;
+		}
+		model.addAttribute("ownerId", ownerId);
+		model.addAttribute("petId", petId);
+		model.addAttribute("visits", visits.getContent());
+		model.addAttribute("visitsSlice", visits);
+		return "owners/petVisits :: visits";
+	}
+
+	private static String etag(Slice<VisitRepository.PetVisit> visits) {
+		List<Object> shown = new ArrayList<>();
+		shown.add(visits.getNumber());
+		shown.add(visits.hasNext());
+		for (VisitRepository.PetVisit visit : visits) {
+			shown.addAll(Arrays.asList(visit.getId(), visit.getDate(), visit.getStartMinute(), visit.getTime(),
+					visit.getVet(), visit.getDescription()));
+		}
+		return "\"" + Integer.toHexString(shown.hashCode()) + "\"";
+	}
+
+	/**
+	 * Load the visits of all the given pets with a single query and hand each pet its own
+	 * visits.
+	 * @param pets the pets whose visits should be loaded
+	 */
+	private void loadVisits(List<Pet> pets) {
+		if (pets.isEmpty()) {
+			return;
+		}
+		List<Integer> petIds = pets.stream().map(Pet::getId).collect(Collectors.toList());
+		Map<Integer, List<Visit>> visitsByPet = this.visits.findByPetIdIn(petIds).stream()
+				.collect(Collectors.groupingBy(visit -> visit.getPet().getId()));
+		for (Pet pet : pets) {
+			pet.setVisitsInternal(visitsByPet.getOrDefault(pet.getId(), Collections.emptyList()));
+		}
+	}
+
 }
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+/**
+ * Number of owners matching a search, either exact or a lower bound for searches too
+ * broad to be worth counting.
+ */
+public final class OwnerCount {
+
+	private final long count;
+
+	private final boolean exact;
+
+	OwnerCount(long count, boolean exact) {
+		this.count = count;
+		this.exact = exact;
+	}
+
+	/**
+	 * @return the number of matches, or the number it is known to exceed if not exact
+	 */
+	public long getCount() {
+		return this.count;
+	}
+
+	public boolean isExact() {
+		return this.exact;
+	}
+
+	/**
+	 * Return the number of pages needed for the matches, or the number known to be needed
+	 * if the count is not exact.
+	 * @param pageSize the number of owners per page
+	 * @return the number of pages
+	 */
+	public int getPages(int pageSize) {
+		return (int) ((this.count + pageSize - 1) / pageSize);
+	}
+
+	@Override
+	public String toString() {
+		return this.exact ? String.valueOf(this.count) : "more than " + this.count;
+	}
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.Locale;
+import java.util.Optional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+/**
+ * Counts the owners matching a last name search, separately from loading them. Counts are
+ * cached per last name prefix in the {@value #CACHE} cache, ignoring case as the last
+ * name column compares it. Prefixes matching more than
+ * {@code petclinic.owners.count-limit} owners, such as the empty "list everything"
+ * search, are only reported as "more than" that limit.
+ * <p>
+ * Callers must report every owner write through {@link #ownerChanged(String...)}, which
+ * evicts just the counts of the prefixes of the affected last names. When the
+ * {@link OwnerSearchIndex} is enabled, owners are counted in memory instead.
+ * </p>
+ */
+@Service
+public class OwnerCountService {
+
+	static final String CACHE = "ownerCounts";
+
+	private final OwnerRepository owners;
+
+	private final OwnerSearchIndex searchIndex;
+
+	private final Cache cache;
+
+	private final int limit;
+
+	public OwnerCountService(OwnerRepository owners, Optional<OwnerSearchIndex> searchIndex,
+			Optional<CacheManager> cacheManager, @Value("${petclinic.owners.count-limit:1000}") int limit) {
+		this.owners = owners;
+		this.searchIndex = searchIndex.orElse(null);
+		this.cache = cacheManager.map(manager -> manager.getCache(CACHE)).orElse(null);
+		this.limit = limit;
+	}
+
+	/**
+	 * Count the owners whose last name starts with the given name.
+	 * @param lastName Value to search for
+	 * @return the exact count, or an estimate if there are more matches than the limit
+	 */
+	public OwnerCount countByLastName(String lastName) {
+		// count one owner past the limit to tell an exact count from an estimate
+		long count = this.searchIndex != null ? this.searchIndex.count(lastName, this.limit + 1) : count(key(lastName));
+		if (count > this.limit) {
+			return new OwnerCount(this.limit, false);
+		}
+		return new OwnerCount(count, true);
+	}
+
+	/**
+	 * Evict the cached counts of the prefixes of the given last names. Pass both the
+	 * previous and the new last name of a renamed owner.
+	 * @param lastNames the last names affected by the write
+	 */
+	public void ownerChanged(String... lastNames) {
+		if (this.cache == null) {
+			return;
+		}
+		for (String lastName : lastNames) {
+			String key = key(lastName);
+			for (int length = 0; length <= key.length(); length++) {
+				this.cache.evict(key.substring(0, length));
+			}
+		}
+	}
+
+	private long count(String prefix) {
+		if (this.cache == null) {
+			return this.owners.countByLastNameUpTo(prefix, this.limit + 1);
+		}
+		Long cached = this.cache.get(prefix, Long.class);
+		if (cached != null) {
+			return cached;
+		}
+		long count = this.owners.countByLastNameUpTo(prefix, this.limit + 1);
+		this.cache.put(prefix, count);
+		return count;
+	}
+
+	private static String key(String lastName) {
+		return lastName != null ? lastName.toLowerCase(Locale.ROOT) : "";
+	}
+
+}
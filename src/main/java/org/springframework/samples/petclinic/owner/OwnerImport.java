@@ -0,0 +1,334 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.samples.petclinic.system.ReferenceData;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Errors;
+
+/**
+ * Imports owners and their pets from a CSV stream, as when onboarding a clinic. The first
+ * line names the columns: {@code firstName}, {@code lastName}, {@code address},
+ * {@code city} and {@code telephone} are required, {@code petName}, {@code birthDate}
+ * ({@code yyyy-MM-dd}) and {@code type} optional. Every line holds an owner and at most
+ * one pet; consecutive lines with the same owner add pets to a single owner.
+ * <p>
+ * The stream is read in chunks of {@code petclinic.import.chunk-size} lines, never cut
+ * inside an owner. The lines of a chunk are validated in parallel, with the bean
+ * validation rules of {@link Owner} and the {@link PetValidator}; pet types are resolved
+ * by name through {@link ReferenceData}. The valid owners of a chunk are then saved in
+ * one transaction, in JDBC batches, and the persistence context cleared so that memory
+ * does not grow with the size of the import. The cached owner counts of their last names
+ * are evicted once per chunk. Rejected lines are written to an error stream as
+ * {@code line,field,message} rows, and progress is logged after every chunk.
+ * </p>
+ */
+@Component
+public class OwnerImport {
+
+	static final List<String> OWNER_COLUMNS = Arrays.asList("firstName", "lastName", "address", "city", "telephone");
+
+	static final List<String> PET_COLUMNS = Arrays.asList("petName", "birthDate", "type");
+
+	private static final Log logger = LogFactory.getLog(OwnerImport.class);
+
+	private final OwnerRepository owners;
+
+	private final ReferenceData referenceData;
+
+	private final Validator validator;
+
+	private final EntityManager entityManager;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final OwnerSearchIndex searchIndex;
+
+	private final OwnerTypeahead typeahead;
+
+	private final OwnerCountService counts;
+
+	private final int chunkSize;
+
+	public OwnerImport(OwnerRepository owners, ReferenceData referenceData, Validator validator,
+			EntityManager entityManager, PlatformTransactionManager transactionManager,
+			Optional<OwnerSearchIndex> searchIndex, OwnerTypeahead typeahead, OwnerCountService counts,
+			@Value("${petclinic.import.chunk-size:500}") int chunkSize) {
+		this.owners = owners;
+		this.referenceData = referenceData;
+		this.validator = validator;
+		this.entityManager = entityManager;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.searchIndex = searchIndex.orElse(null);
+		this.typeahead = typeahead;
+		this.counts = counts;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Import the owners and pets of a CSV stream. Chunks saved before a failure stay
+	 * saved.
+	 * @param csv the CSV to import, starting with its header line
+	 * @param errors where to write the rejected lines
+	 * @return the number of lines, owners and pets imported and lines rejected
+	 * @throws IllegalArgumentException if the header misses a required column
+	 */
+	public ImportReport importCsv(Reader csv, Writer errors) throws IOException {
+		BufferedReader reader = new BufferedReader(csv);
+		String header = reader.readLine();
+		Map<String, Integer> columns = columns(header);
+		errors.write("line,field,message\n");
+		ImportReport report = new ImportReport();
+		List<Row> chunk = new ArrayList<>(this.chunkSize);
+		int lineNumber = 1;
+		String line;
+		while ((line = reader.readLine()) != null) {
+			lineNumber++;
+			if (line.isEmpty()) {
+				continue;
+			}
+			Row row = new Row(lineNumber, parse(line), columns);
+			if (chunk.size() >= this.chunkSize && !row.sameOwner(chunk.get(chunk.size() - 1))) {
+				importChunk(chunk, errors, report);
+				chunk.clear();
+			}
+			chunk.add(row);
+		}
+		if (!chunk.isEmpty()) {
+			importChunk(chunk, errors, report);
+		}
+		errors.flush();
+		logger.info("Import finished: " + report);
+		return report;
+	}
+
+	private void importChunk(List<Row> chunk, Writer errors, ImportReport report) throws IOException {
+		chunk.parallelStream().forEach(this::validate);
+		List<Owner> owners = new ArrayList<>();
+		Row previous = null;
+		for (Row row : chunk) {
+			report.line();
+			if (!row.errors.isEmpty()) {
+				report.reject();
+				writeErrors(row, errors);
+				continue;
+			}
+			if (previous == null || !row.sameOwner(previous)) {
+				owners.add(row.owner);
+			}
+			else {
+				row.owner = previous.owner;
+			}
+			if (row.pet != null) {
+				if (row.owner.getPet(row.pet.getName()) != null) {
+					row.errors.put("petName", "already exists");
+					report.reject();
+					writeErrors(row, errors);
+					continue;
+				}
+				row.owner.addPet(row.pet);
+				report.pet();
+			}
+			previous = row;
+		}
+		if (!owners.isEmpty()) {
+			this.transactionTemplate.executeWithoutResult(status -> {
+				owners.forEach(this.owners::save);
+				this.entityManager.flush();
+				this.entityManager.clear();
+			});
+			owners.forEach(this::ownerSaved);
+			// once per chunk, owners of a chunk often share last names
+			this.counts.ownerChanged(owners.stream().map(Owner::getLastName).distinct().toArray(String[]::new));
+		}
+		owners.forEach(owner -> report.owner());
+		logger.info("Imported " + report);
+	}
+
+	private void ownerSaved(Owner owner) {
+		if (this.searchIndex != null) {
+			this.searchIndex.put(owner);
+		}
+		this.typeahead.ownerChanged(owner.getLastName());
+	}
+
+	private void validate(Row row) {
+		Owner owner = new Owner();
+		owner.setFirstName(row.get("firstName"));
+		owner.setLastName(row.get("lastName"));
+		owner.setAddress(row.get("address"));
+		owner.setCity(row.get("city"));
+		owner.setTelephone(row.get("telephone"));
+		for (ConstraintViolation<Owner> violation : this.validator.validate(owner)) {
+			row.errors.putIfAbsent(violation.getPropertyPath().toString(), violation.getMessage());
+		}
+		row.owner = owner;
+
+		if (PET_COLUMNS.stream().map(row::get).allMatch(Objects::isNull)) {
+			return;
+		}
+		Pet pet = new Pet();
+		pet.setName(row.get("petName"));
+		String type = row.get("type");
+		if (type != null) {
+			pet.setType(this.referenceData.findPetType(type));
+			if (pet.getType() == null) {
+				row.errors.put("type", "unknown pet type " + type);
+			}
+		}
+		String birthDate = row.get("birthDate");
+		if (birthDate != null) {
+			try {
+				pet.setBirthDate(LocalDate.parse(birthDate));
+			}
+			catch (DateTimeParseException ex) {
+				row.errors.put("birthDate", "invalid date " + birthDate);
+			}
+		}
+		Errors errors = new BeanPropertyBindingResult(pet, "pet");
+		new PetValidator().validate(pet, errors);
+		errors.getFieldErrors()
+				.forEach(error -> row.errors.putIfAbsent("name".equals(error.getField()) ? "petName" : error.getField(),
+						error.getDefaultMessage()));
+		row.pet = pet;
+	}
+
+	private static void writeErrors(Row row, Writer errors) throws IOException {
+		for (Map.Entry<String, String> error : row.errors.entrySet()) {
+			errors.write(row.lineNumber + "," + error.getKey() + "," + quote(error.getValue()) + "\n");
+		}
+	}
+
+	private static Map<String, Integer> columns(String header) {
+		if (header == null) {
+			throw new IllegalArgumentException("Missing header line");
+		}
+		List<String> names = parse(header);
+		Map<String, Integer> columns = new HashMap<>();
+		for (int i = 0; i < names.size(); i++) {
+			columns.put(names.get(i).trim(), i);
+		}
+		List<String> missing = OWNER_COLUMNS.stream().filter(name -> !columns.containsKey(name))
+				.collect(Collectors.toList());
+		if (!missing.isEmpty()) {
+			throw new IllegalArgumentException("Missing columns " + missing);
+		}
+		return columns;
+	}
+
+	/**
+	 * Split a CSV line into its fields. Fields may be quoted, with quotes inside doubled,
+	 * but not span lines.
+	 */
+	static List<String> parse(String line) {
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (quoted) {
+				if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					field.append(c);
+					i++;
+				}
+				else if (c == '"') {
+					quoted = false;
+				}
+				else {
+					field.append(c);
+				}
+			}
+			else if (c == '"') {
+				quoted = true;
+			}
+			else if (c == ',') {
+				fields.add(field.toString());
+				field.setLength(0);
+			}
+			else {
+				field.append(c);
+			}
+		}
+		fields.add(field.toString());
+		return fields;
+	}
+
+	private static String quote(String value) {
+		return "\"" + value.replace("\"", "\"\"") + "\"";
+	}
+
+	private static final class Row {
+
+		private final int lineNumber;
+
+		private final List<String> fields;
+
+		private final Map<String, Integer> columns;
+
+		// written by the validating thread, read once the chunk is validated
+		private final Map<String, String> errors = new LinkedHashMap<>();
+
+		private Owner owner;
+
+		private Pet pet;
+
+		Row(int lineNumber, List<String> fields, Map<String, Integer> columns) {
+			this.lineNumber = lineNumber;
+			this.fields = fields;
+			this.columns = columns;
+		}
+
+		String get(String column) {
+			Integer index = this.columns.get(column);
+			if (index == null || index >= this.fields.size()) {
+				return null;
+			}
+			String value = this.fields.get(index).trim();
+			return StringUtils.hasLength(value) ? value : null;
+		}
+
+		boolean sameOwner(Row other) {
+			return OWNER_COLUMNS.stream().allMatch(column -> Objects.equals(get(column), other.get(column)));
+		}
+
+	}
+
+}
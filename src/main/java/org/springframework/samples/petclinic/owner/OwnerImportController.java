@@ -0,0 +1,103 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Bulk import of owners and pets, posted as {@code text/csv} in the format read by
+ * {@link OwnerImport}. The request body is streamed, never held in memory. Rejected lines
+ * are written to a file in {@code petclinic.import.error-dir}, named by a random id. The
+ * counts of the import come with the path the file can be downloaded from, which only
+ * carries that id, so the layout of the server is not exposed.
+ */
+@RestController
+class OwnerImportController {
+
+	private final OwnerImport ownerImport;
+
+	private final Path errorDir;
+
+	OwnerImportController(OwnerImport ownerImport,
+			@Value("${petclinic.import.error-dir:${java.io.tmpdir}}") String errorDir) {
+		this.ownerImport = ownerImport;
+		this.errorDir = Paths.get(errorDir);
+	}
+
+	@PostMapping(path = "/owners/import", consumes = "text/csv")
+	public ImportReport importOwners(InputStream csv) throws IOException {
+		String id = UUID.randomUUID().toString();
+		Path errorFile = Files.createFile(errorFile(id));
+		ImportReport report;
+		try (Writer errors = Files.newBufferedWriter(errorFile)) {
+			report = this.ownerImport.importCsv(new InputStreamReader(csv, StandardCharsets.UTF_8), errors);
+		}
+		catch (IllegalArgumentException ex) {
+			Files.deleteIfExists(errorFile);
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+		}
+		if (report.getRejected() == 0) {
+			Files.deleteIfExists(errorFile);
+		}
+		else {
+			report.setErrorReport("/owners/import/errors/" + id);
+		}
+		return report;
+	}
+
+	@GetMapping(path = "/owners/import/errors/{id}", produces = "text/csv")
+	public Resource downloadErrors(@PathVariable("id") String id) {
+		UUID uuid;
+		try {
+			// only ids handed out by importOwners can name a file
+			uuid = UUID.fromString(id);
+		}
+		catch (IllegalArgumentException ex) {
+			throw errorReportNotFound(id);
+		}
+		Path errorFile = errorFile(uuid.toString());
+		if (!Files.isRegularFile(errorFile)) {
+			throw errorReportNotFound(id);
+		}
+		return new FileSystemResource(errorFile);
+	}
+
+	private static ResponseStatusException errorReportNotFound(String id) {
+		return new ResponseStatusException(HttpStatus.NOT_FOUND, "Error report not found: " + id);
+	}
+
+	private Path errorFile(String id) {
+		return this.errorDir.resolve("owner-import-" + id + ".errors.csv");
+	}
+
+}
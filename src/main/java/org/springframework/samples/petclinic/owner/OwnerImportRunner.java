@@ -0,0 +1,63 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Imports a CSV file of owners and pets at startup when the application is given an
+ * {@code --import=<file>} argument. Rejected lines are written next to the file, to
+ * {@code <file>.errors.csv}. Add {@code --spring.main.web-application-type=none} to exit
+ * once the import is done, see {@link OwnerImport}.
+ */
+@Component
+class OwnerImportRunner implements ApplicationRunner {
+
+	private static final Log logger = LogFactory.getLog(OwnerImportRunner.class);
+
+	private final OwnerImport ownerImport;
+
+	OwnerImportRunner(OwnerImport ownerImport) {
+		this.ownerImport = ownerImport;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) throws Exception {
+		if (!args.containsOption("import")) {
+			return;
+		}
+		for (String file : args.getOptionValues("import")) {
+			Path csv = Paths.get(file);
+			Path errorFile = Paths.get(file + ".errors.csv");
+			try (Reader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8);
+					Writer errors = Files.newBufferedWriter(errorFile)) {
+				ImportReport report = this.ownerImport.importCsv(reader, errors);
+				logger.info("Imported " + csv + ": " + report + ", rejected lines in " + errorFile);
+			}
+		}
+	}
+
+}
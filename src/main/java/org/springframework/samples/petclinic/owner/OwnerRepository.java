@@ -15,11 +15,17 @@
  */
 package org.springframework.samples.petclinic.owner;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.Repository;
 import org.springframework.data.repository.query.Param;
+import org.springframework.samples.petclinic.model.BaseEntity;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -36,28 +42,142 @@ import org.springframework.transaction.annotation.Transactional;
 public interface OwnerRepository extends Repository<Owner, Integer> {
 
 	/**
-	 * Retrieve {@link Owner}s from the data store by last name, returning all owners
-	 * whose last name <i>starts</i> with the given name.
+	 * Retrieve a slice of the ids of the {@link Owner}s whose last name <i>starts</i>
+	 * with the given name. The slice is ordered and limited by the database without
+	 * joining pets, so that the limit applies to owners rather than to owner and pet
+	 * rows; load the owners of the slice with {@link #findWithPetsByIdIn(Collection)}.
+	 * This does not run a count query, see {@link OwnerCountService} for the number of
+	 * matches.
 	 * @param lastName Value to search for
-	 * @return a Collection of matching {@link Owner}s (or an empty Collection if none
-	 * found)
+	 * @param pageable the slice to retrieve
+	 * @return a slice of the ids of matching owners, in last name and id order
 	 */
+	@Query("SELECT owner.id FROM Owner owner WHERE owner.lastName LIKE :lastName% ORDER BY owner.lastName, owner.id")
+	@Transactional(readOnly = true)
+	Slice<Integer> findIdSliceByLastName(@Param("lastName") String lastName, Pageable pageable);
+
+	/**
+	 * Count the {@link Owner}s whose last name <i>starts</i> with the given name, but
+	 * stop counting at the given limit so that broad prefixes stay cheap.
+	 * @param lastName Value to search for
+	 * @param limit the number of matches at which counting stops
+	 * @return the number of matches, at most {@code limit}
+	 */
+	@Query(value = "SELECT COUNT(*) FROM (SELECT id FROM owners WHERE last_name LIKE CONCAT(:lastName, '%') "
+			+ "LIMIT :limit) matches", nativeQuery = true)
+	@Transactional(readOnly = true)
+	long countByLastNameUpTo(@Param("lastName") String lastName, @Param("limit") int limit);
 
-	@Query("SELECT DISTINCT owner FROM Owner owner left join  owner.pets WHERE owner.lastName LIKE :lastName% ")
+	/**
+	 * Retrieve the ids of the {@link Owner}s whose last name <i>starts</i> with the given
+	 * name and that come after the given position in last name and id order. This seeks
+	 * on the last name index rather than skipping rows and does not count matches.
+	 * @param lastName Value to search for
+	 * @param afterLastName last name of the position to read after
+	 * @param afterId id of the position to read after
+	 * @param limit the maximum number of owners to return
+	 * @return the ids of the owners following the position, in ascending order
+	 * @see org.springframework.samples.petclinic.model.Keyset
+	 */
+	@Query("SELECT owner.id FROM Owner owner WHERE owner.lastName LIKE :lastName% AND (owner.lastName > :afterLastName "
+			+ "OR (owner.lastName = :afterLastName AND owner.id > :afterId)) ORDER BY owner.lastName, owner.id")
 	@Transactional(readOnly = true)
-	Page<Owner> findByLastName(@Param("lastName") String lastName, Pageable pageable);
+	List<Integer> findIdsByLastNameAfter(@Param("lastName") String lastName,
+			@Param("afterLastName") String afterLastName, @Param("afterId") Integer afterId, Pageable limit);
 
 	/**
-	 * Retrieve an {@link Owner} from the data store by id.
+	 * Retrieve the ids of the {@link Owner}s whose last name <i>starts</i> with the given
+	 * name and that come before the given position in last name and id order.
+	 * @param lastName Value to search for
+	 * @param beforeLastName last name of the position to read before
+	 * @param beforeId id of the position to read before
+	 * @param limit the maximum number of owners to return
+	 * @return the ids of the owners preceding the position, nearest first
+	 * @see org.springframework.samples.petclinic.model.Keyset
+	 */
+	@Query("SELECT owner.id FROM Owner owner WHERE owner.lastName LIKE :lastName% AND (owner.lastName < :beforeLastName "
+			+ "OR (owner.lastName = :beforeLastName AND owner.id < :beforeId)) "
+			+ "ORDER BY owner.lastName DESC, owner.id DESC")
+	@Transactional(readOnly = true)
+	List<Integer> findIdsByLastNameBefore(@Param("lastName") String lastName,
+			@Param("beforeLastName") String beforeLastName, @Param("beforeId") Integer beforeId, Pageable limit);
+
+	/**
+	 * Retrieve an {@link Owner} from the data store by id, together with its pets and
+	 * their types.
 	 * @param id the id to search for
 	 * @return the {@link Owner} if found
+	 * @see Owner#PETS_GRAPH
 	 */
-	@Query("SELECT owner FROM Owner owner left join fetch owner.pets WHERE owner.id =:id")
+	@Query("SELECT DISTINCT owner FROM Owner owner WHERE owner.id =:id")
+	@EntityGraph(Owner.PETS_GRAPH)
 	@Transactional(readOnly = true)
 	Owner findById(@Param("id") Integer id);
 
 	/**
-	 * Save an {@link Owner} to the data store, either inserting or updating it.
+	 * Retrieve an {@link Owner} from the data store by id, leaving its pets unloaded, for
+	 * the pages that show the owner but not its pets.
+	 * @param id the id to search for
+	 * @return the {@link Owner} if found
+	 */
+	@Query("SELECT owner FROM Owner owner WHERE owner.id =:id")
+	@Transactional(readOnly = true)
+	Owner findWithoutPetsById(@Param("id") Integer id);
+
+	/**
+	 * Retrieve the ids of the {@link Owner}s whose last name <i>starts</i> with the given
+	 * name, in last name and id order, without loading the owners.
+	 * @param lastName Value to search for
+	 * @param pageable the ids to retrieve
+	 * @return the ids of matching owners
+	 */
+	@Query("SELECT owner.id FROM Owner owner WHERE owner.lastName LIKE :lastName% ORDER BY owner.lastName, owner.id")
+	@Transactional(readOnly = true)
+	List<Integer> findIdsByLastName(@Param("lastName") String lastName, Pageable pageable);
+
+	/**
+	 * Retrieve the {@link Owner}s with the given ids together with their pets, using a
+	 * single statement.
+	 * @param ids the ids to search for
+	 * @return the owners found, in no particular order
+	 * @see Owner#PETS_GRAPH
+	 */
+	@Query("SELECT DISTINCT owner FROM Owner owner WHERE owner.id IN :ids")
+	@EntityGraph(Owner.PETS_GRAPH)
+	@Transactional(readOnly = true)
+	List<Owner> findWithPetsByIdIn(@Param("ids") Collection<Integer> ids);
+
+	/**
+	 * Retrieve the {@link Owner}s with the given ids together with their pets, like
+	 * {@link #findWithPetsByIdIn(Collection)}, in the order of the ids.
+	 * @param ids the ids to search for, typically a page of ids
+	 * @return the owners found, in the order of their ids
+	 */
+	default List<Owner> findWithPetsInOrder(List<Integer> ids) {
+		return ids.isEmpty() ? new ArrayList<>() : BaseEntity.orderByIds(findWithPetsByIdIn(ids), ids);
+	}
+
+	/**
+	 * Retrieve the last name of an {@link Owner} as currently stored.
+	 * @param id the id of the owner
+	 * @return the stored last name, or {@code null} if there is no such owner
+	 */
+	@Query("SELECT owner.lastName FROM Owner owner WHERE owner.id = :id")
+	@Transactional(readOnly = true)
+	String findLastNameById(@Param("id") Integer id);
+
+	/**
+	 * Retrieve the id and last name of every {@link Owner}, without loading the owners.
+	 * @return the names of all owners
+	 * @see OwnerSearchIndex
+	 */
+	@Query("SELECT owner.id AS id, owner.lastName AS lastName FROM Owner owner")
+	@Transactional(readOnly = true)
+	List<OwnerName> findAllNames();
+
+	/**
+	 * Save an {@link Owner} to the data store, either inserting or updating it. Report
+	 * the write to {@link OwnerCountService#ownerChanged(String...)}.
 	 * @param owner the {@link Owner} to save
 	 */
 	void save(Owner owner);
@@ -69,4 +189,15 @@ public interface OwnerRepository extends Repository<Owner, Integer> {
 	@Transactional(readOnly = true)
 	Page<Owner> findAll(Pageable pageable);
 
+	/**
+	 * Projection of an {@link Owner} onto the columns needed to search it by name.
+	 */
+	interface OwnerName {
+
+		Integer getId();
+
+		String getLastName();
+
+	}
+
 }
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.samples.petclinic.model.Keyset;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory index from case-folded owner last name to owner id, kept sorted by last name
+ * and id. Prefix searches are resolved against the index and only the owners of the
+ * requested window are loaded, by primary key, so the database never scans the last name
+ * index. Windows are found by seeking to a {@link Keyset} position in the sorted index,
+ * so deep windows are as cheap as the first one.
+ * <p>
+ * The index is built from the {@link OwnerRepository} once all singletons are created and
+ * must be told about every owner that is saved afterwards. It is only created when
+ * {@code petclinic.owners.search-index} is {@code true}.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = "petclinic.owners.search-index", havingValue = "true")
+public class OwnerSearchIndex implements SmartInitializingSingleton {
+
+	private final OwnerRepository owners;
+
+	private final NavigableSet<Entry> entries = new ConcurrentSkipListSet<>();
+
+	private final Map<Integer, Entry> entriesById = new ConcurrentHashMap<>();
+
+	public OwnerSearchIndex(OwnerRepository owners) {
+		this.owners = owners;
+	}
+
+	@Override
+	public void afterSingletonsInstantiated() {
+		for (OwnerRepository.OwnerName owner : this.owners.findAllNames()) {
+			put(owner.getId(), owner.getLastName());
+		}
+	}
+
+	/**
+	 * Add an owner to the index, or move it if its last name changed.
+	 * @param id the id of the owner
+	 * @param lastName the current last name of the owner
+	 */
+	public synchronized void put(Integer id, String lastName) {
+		Entry entry = new Entry(fold(lastName), id);
+		Entry previous = this.entriesById.put(id, entry);
+		if (previous != null) {
+			this.entries.remove(previous);
+		}
+		this.entries.add(entry);
+	}
+
+	/**
+	 * Add or move the given owner, see {@link #put(Integer, String)}.
+	 * @param owner a saved owner
+	 */
+	public void put(Owner owner) {
+		put(owner.getId(), owner.getLastName());
+	}
+
+	/**
+	 * Return the ids of the owners whose last name starts with the given prefix, ignoring
+	 * case, that follow a position in last name and id order.
+	 * @param lastName the prefix to search for
+	 * @param after the position to seek past, {@link Keyset#FIRST} for the first owners
+	 * @param limit the maximum number of ids to return
+	 * @return the matching ids, in ascending order
+	 */
+	public List<Integer> findIdsAfter(String lastName, Keyset after, int limit) {
+		NavigableSet<Entry> matches = matches(lastName);
+		Entry position = new Entry(fold(after.getLastName()), after.getId());
+		if (!matches.isEmpty() && position.compareTo(matches.first()) >= 0) {
+			matches = position.compareTo(matches.last()) < 0 ? matches.tailSet(position, false)
+					: Collections.emptyNavigableSet();
+		}
+		return ids(matches, limit);
+	}
+
+	/**
+	 * Return the ids of the owners whose last name starts with the given prefix, ignoring
+	 * case, that precede a position in last name and id order.
+	 * @param lastName the prefix to search for
+	 * @param before the position to seek before
+	 * @param limit the maximum number of ids to return
+	 * @return the matching ids, in descending order
+	 */
+	public List<Integer> findIdsBefore(String lastName, Keyset before, int limit) {
+		NavigableSet<Entry> matches = matches(lastName);
+		Entry position = new Entry(fold(before.getLastName()), before.getId());
+		if (!matches.isEmpty() && position.compareTo(matches.last()) <= 0) {
+			matches = position.compareTo(matches.first()) > 0 ? matches.headSet(position, false)
+					: Collections.emptyNavigableSet();
+		}
+		return ids(matches.descendingSet(), limit);
+	}
+
+	/**
+	 * Count the owners whose last name starts with the given prefix, ignoring case,
+	 * stopping at the given limit.
+	 * @param lastName the prefix to search for
+	 * @param limit the number of matches at which counting stops
+	 * @return the number of matches, at most {@code limit}
+	 */
+	public long count(String lastName, long limit) {
+		return matches(lastName).stream().limit(limit).count();
+	}
+
+	private static List<Integer> ids(NavigableSet<Entry> entries, int limit) {
+		List<Integer> ids = new ArrayList<>(limit);
+		Iterator<Entry> matches = entries.iterator();
+		while (ids.size() < limit && matches.hasNext()) {
+			ids.add(matches.next().id);
+		}
+		return ids;
+	}
+
+	private NavigableSet<Entry> matches(String lastName) {
+		String prefix = fold(lastName);
+		return this.entries.subSet(new Entry(prefix, Integer.MIN_VALUE), true,
+				new Entry(prefix + Character.MAX_VALUE, Integer.MIN_VALUE), false);
+	}
+
+	private static String fold(String lastName) {
+		return lastName == null ? "" : lastName.toLowerCase(Locale.ROOT);
+	}
+
+	private static final class Entry implements Comparable<Entry> {
+
+		private static final Comparator<Entry> ORDER = Comparator.<Entry, String>comparing(entry -> entry.lastName)
+				.thenComparingInt(entry -> entry.id);
+
+		private final String lastName;
+
+		private final int id;
+
+		Entry(String lastName, int id) {
+			this.lastName = lastName;
+			this.id = id;
+		}
+
+		@Override
+		public int compareTo(Entry other) {
+			return ORDER.compare(this, other);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof Entry && compareTo((Entry) other) == 0;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * this.lastName.hashCode() + this.id;
+		}
+
+	}
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Compact view of an {@link Owner} returned by the last name typeahead.
+ */
+public class OwnerSuggestion implements Serializable {
+
+	private final int id;
+
+	private final String name;
+
+	private final String city;
+
+	private final List<String> pets;
+
+	OwnerSuggestion(Owner owner) {
+		this.id = owner.getId();
+		this.name = owner.getFirstName() + " " + owner.getLastName();
+		this.city = owner.getCity();
+		this.pets = owner.getPets().stream().map(Pet::getName).collect(Collectors.toList());
+	}
+
+	public int getId() {
+		return this.id;
+	}
+
+	public String getName() {
+		return this.name;
+	}
+
+	public String getCity() {
+		return this.city;
+	}
+
+	public List<String> getPets() {
+		return this.pets;
+	}
+
+}
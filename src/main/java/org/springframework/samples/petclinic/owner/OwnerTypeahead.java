@@ -0,0 +1,123 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.samples.petclinic.model.Keyset;
+import org.springframework.stereotype.Service;
+
+/**
+ * Suggests owners for a last name prefix as it is typed. Short prefixes are requested far
+ * more often than long ones and match many owners, so their suggestions are kept in the
+ * bounded {@value #CACHE} cache. Longer prefixes are selective enough to be looked up
+ * directly.
+ * <p>
+ * Callers must report every owner write through {@link #ownerChanged(String...)}, which
+ * evicts just the prefixes of the affected last names. Prefixes match regardless of case,
+ * as the last name column and the {@link OwnerSearchIndex} compare them, so every
+ * spelling of a prefix shares one cache entry.
+ * </p>
+ */
+@Service
+public class OwnerTypeahead {
+
+	static final String CACHE = "ownerSuggestions";
+
+	private final OwnerRepository owners;
+
+	private final OwnerSearchIndex searchIndex;
+
+	private final Cache cache;
+
+	private final int limit;
+
+	private final int cachedPrefixLength;
+
+	public OwnerTypeahead(OwnerRepository owners, Optional<OwnerSearchIndex> searchIndex,
+			Optional<CacheManager> cacheManager, @Value("${petclinic.owners.typeahead.limit:10}") int limit,
+			@Value("${petclinic.owners.typeahead.cached-prefix-length:3}") int cachedPrefixLength) {
+		this.owners = owners;
+		this.searchIndex = searchIndex.orElse(null);
+		this.cache = cacheManager.map(manager -> manager.getCache(CACHE)).orElse(null);
+		this.limit = limit;
+		this.cachedPrefixLength = cachedPrefixLength;
+	}
+
+	/**
+	 * Return the first owners, in last name order, whose last name starts with the given
+	 * prefix.
+	 * @param prefix the typed part of the last name
+	 * @return at most {@code petclinic.owners.typeahead.limit} suggestions
+	 */
+	@SuppressWarnings("unchecked")
+	public List<OwnerSuggestion> suggest(String prefix) {
+		String key = key(prefix);
+		if (key.isEmpty()) {
+			return Collections.emptyList();
+		}
+		if (key.length() > this.cachedPrefixLength || this.cache == null) {
+			return load(key);
+		}
+		Cache.ValueWrapper cached = this.cache.get(key);
+		if (cached != null) {
+			return (List<OwnerSuggestion>) cached.get();
+		}
+		List<OwnerSuggestion> suggestions = load(key);
+		this.cache.put(key, suggestions);
+		return suggestions;
+	}
+
+	/**
+	 * Evict the cached suggestions that may show an owner with one of the given last
+	 * names. Pass both the previous and the new last name of a renamed owner.
+	 * @param lastNames the last names affected by the write
+	 */
+	public void ownerChanged(String... lastNames) {
+		if (this.cache == null) {
+			return;
+		}
+		for (String lastName : lastNames) {
+			String key = key(lastName);
+			for (int length = 1; length <= Math.min(key.length(), this.cachedPrefixLength); length++) {
+				this.cache.evict(key.substring(0, length));
+			}
+		}
+	}
+
+	private List<OwnerSuggestion> load(String prefix) {
+		List<Integer> ids = this.searchIndex != null ? this.searchIndex.findIdsAfter(prefix, Keyset.FIRST, this.limit)
+				: this.owners.findIdsByLastName(prefix, PageRequest.of(0, this.limit));
+		return this.owners.findWithPetsInOrder(ids).stream().map(OwnerSuggestion::new)
+				.collect(Collectors.toCollection(ArrayList::new));
+	}
+
+	private String key(String lastName) {
+		if (lastName == null) {
+			return "";
+		}
+		return lastName.trim().toLowerCase(Locale.ROOT);
+	}
+
+}
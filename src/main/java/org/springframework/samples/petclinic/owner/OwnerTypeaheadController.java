@@ -0,0 +1,40 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.List;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * JSON endpoint behind the owner last name autocomplete of the find owners form.
+ */
+@RestController
+class OwnerTypeaheadController {
+
+	private final OwnerTypeahead typeahead;
+
+	public OwnerTypeaheadController(OwnerTypeahead typeahead) {
+		this.typeahead = typeahead;
+	}
+
+	@GetMapping("/owners/typeahead")
+	public List<OwnerSuggestion> suggest(@RequestParam(name = "lastName", defaultValue = "") String lastName) {
+		return this.typeahead.suggest(lastName);
+	}
+
+}
@@ -40,9 +40,12 @@ class PetController {
 
 	private final OwnerRepository owners;
 
-	public PetController(PetRepository pets, OwnerRepository owners) {
+	private final OwnerTypeahead typeahead;
+
+	public PetController(PetRepository pets, OwnerRepository owners, OwnerTypeahead typeahead) {
 		this.pets = pets;
 		this.owners = owners;
+		this.typeahead = typeahead;
 	}
 
 	@ModelAttribute("types")
@@ -52,7 +55,8 @@ class PetController {
 
 	@ModelAttribute("owner")
 	public Owner findOwner(@PathVariable("ownerId") int ownerId) {
-		return this.owners.findById(ownerId);
+		// the pet forms show the owner's name only
+		return this.owners.findWithoutPetsById(ownerId);
 	}
 
 	@InitBinder("owner")
@@ -68,23 +72,26 @@ class PetController {
 	@GetMapping("/pets/new")
 	public String initCreationForm(Owner owner, ModelMap model) {
 		Pet pet = new Pet();
-		owner.addPet(pet);
+		pet.setOwner(owner);
 		model.put("pet", pet);
 		return VIEWS_PETS_CREATE_OR_UPDATE_FORM;
 	}
 
 	@PostMapping("/pets/new")
 	public String processCreationForm(Owner owner, @Valid Pet pet, BindingResult result, ModelMap model) {
-		if (StringUtils.hasLength(pet.getName()) && pet.isNew() && owner.getPet(pet.getName(), true) != null) {
+		if (StringUtils.hasLength(pet.getName()) && pet.isNew()
+				&& this.pets.existsByOwnerIdAndNameIgnoreCase(owner.getId(), pet.getName())) {
 			result.rejectValue("name", "duplicate", "already exists");
 		}
-		owner.addPet(pet);
+		pet.setOwner(owner);
 		if (result.hasErrors()) {
 			model.put("pet", pet);
 			return VIEWS_PETS_CREATE_OR_UPDATE_FORM;
 		}
 		else {
 			this.pets.save(pet);
+			// suggestions list the pet names of each owner
+			this.typeahead.ownerChanged(owner.getLastName());
 			return "redirect:/owners/{ownerId}";
 		}
 	}
@@ -104,8 +111,10 @@ class PetController {
 			return VIEWS_PETS_CREATE_OR_UPDATE_FORM;
 		}
 		else {
-			owner.addPet(pet);
+			pet.setOwner(owner);
 			this.pets.save(pet);
+			// suggestions list the pet names of each owner
+			this.typeahead.ownerChanged(owner.getLastName());
 			return "redirect:/owners/{ownerId}";
 		}
 	}
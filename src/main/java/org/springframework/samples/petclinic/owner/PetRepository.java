@@ -16,10 +16,12 @@
 package org.springframework.samples.petclinic.owner;
 
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import javax.persistence.QueryHint;
 
 /**
  * Repository class for <code>Pet</code> domain objects All method names are compliant
@@ -39,6 +41,7 @@ public interface PetRepository extends Repository<Pet, Integer> {
 	 * @return a Collection of {@link PetType}s.
 	 */
 	@Query("SELECT ptype FROM PetType ptype ORDER BY ptype.name")
+	@QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.CACHEABLE, value = "true"))
 	@Transactional(readOnly = true)
 	List<PetType> findPetTypes();
 
@@ -50,6 +53,16 @@ public interface PetRepository extends Repository<Pet, Integer> {
 	@Transactional(readOnly = true)
 	Pet findById(Integer id);
 
+	/**
+	 * Check whether an {@link Owner} already has a pet of the given name, ignoring case,
+	 * without loading the pets of the owner.
+	 * @param ownerId the id of the owner
+	 * @param name the name to look for
+	 * @return {@code true} if the owner has a pet of that name
+	 */
+	@Transactional(readOnly = true)
+	boolean existsByOwnerIdAndNameIgnoreCase(Integer ownerId, String name);
+
 	/**
 	 * Save a {@link Pet} to the data store, either inserting or updating it.
 	 * @param pet the {@link Pet} to save
@@ -15,6 +15,9 @@
  */
 package org.springframework.samples.petclinic.owner;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
 import org.springframework.samples.petclinic.model.NamedEntity;
 
 import javax.persistence.Entity;
@@ -25,6 +28,8 @@ import javax.persistence.Table;
  */
 @Entity
 @Table(name = "types")
+@Immutable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY)
 public class PetType extends NamedEntity {
 
 }
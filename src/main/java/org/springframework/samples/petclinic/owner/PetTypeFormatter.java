@@ -16,10 +16,10 @@
 package org.springframework.samples.petclinic.owner;
 
 import java.text.ParseException;
-import java.util.Collection;
 import java.util.Locale;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.Formatter;
+import org.springframework.samples.petclinic.system.ReferenceData;
 import org.springframework.stereotype.Component;
 
 /**
@@ -35,11 +35,11 @@ import org.springframework.stereotype.Component;
 @Component
 public class PetTypeFormatter implements Formatter<PetType> {
 
-	private final PetRepository pets;
+	private final ReferenceData referenceData;
 
 	@Autowired
-	public PetTypeFormatter(PetRepository pets) {
-		this.pets = pets;
+	public PetTypeFormatter(ReferenceData referenceData) {
+		this.referenceData = referenceData;
 	}
 
 	@Override
@@ -55,11 +55,9 @@ public class PetTypeFormatter implements Formatter<PetType> {
 		} catch (NumberFormatException e) {
 			throw new ParseException("Wrong type id: " + text, 0);
 		}
-		Collection<PetType> findPetTypes = this.pets.findPetTypes();
-		for (PetType type : findPetTypes) {
-			if (type.getId().equals(id)) {
-				return type;
-			}
+		PetType type = this.referenceData.findPetType(id);
+		if (type != null) {
+			return type;
 		}
 		throw new ParseException("type not found: " + text, 0);
 	}
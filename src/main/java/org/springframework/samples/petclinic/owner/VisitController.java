@@ -15,17 +15,20 @@
  */
 package org.springframework.samples.petclinic.owner;
 
-import java.time.DayOfWeek;
 import java.time.LocalDate;
-import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import javax.validation.Valid;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.samples.petclinic.vet.Vet;
 import org.springframework.samples.petclinic.vet.VetRepository;
+import org.springframework.samples.petclinic.visit.Recurrence;
+import org.springframework.samples.petclinic.visit.SlotAvailability;
+import org.springframework.samples.petclinic.visit.SlotHolds;
 import org.springframework.samples.petclinic.visit.Visit;
+import org.springframework.samples.petclinic.visit.VisitSeries;
+import org.springframework.samples.petclinic.visit.VisitSeriesBooking;
 import org.springframework.samples.petclinic.visit.VisitRepository;
 import org.springframework.samples.petclinic.visit.WorkingHour;
 import org.springframework.stereotype.Controller;
@@ -37,6 +40,7 @@ import org.springframework.web.bind.annotation.InitBinder;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 
 /**
  * @author Juergen Hoeller
@@ -53,11 +57,20 @@ class VisitController {
 	private final PetRepository pets;
 	private final VetRepository vets;
 
-	public VisitController(VisitRepository visits, PetRepository pets,
-		VetRepository vets) {
+	private final SlotAvailability availability;
+
+	private final SlotHolds holds;
+
+	private final VisitSeriesBooking seriesBooking;
+
+	public VisitController(VisitRepository visits, PetRepository pets, VetRepository vets,
+			SlotAvailability availability, SlotHolds holds, VisitSeriesBooking seriesBooking) {
 		this.visits = visits;
 		this.pets = pets;
 		this.vets = vets;
+		this.availability = availability;
+		this.holds = holds;
+		this.seriesBooking = seriesBooking;
 	}
 
 	@InitBinder
@@ -72,7 +85,7 @@ class VisitController {
 
 	@ModelAttribute("workingHours")
 	public Collection<WorkingHour> populateWorkingHours() {
-		return this.visits.findWorkingHours();
+		return this.availability.getSlots();
 	}
 
 	/**
@@ -93,39 +106,115 @@ class VisitController {
 	}
 
 	// Spring MVC calls method loadPetWithVisit(...) before initNewVisitForm is called
+	// and binds a vet and date chosen on the form, to offer the free slots of that day
+	// and hold the chosen slot while the form is filled in
 	@GetMapping("/owners/*/pets/{petId}/visits/new")
-	public String initNewVisitForm(@PathVariable("petId") int petId, Map<String, Object> model) {
+	public String initNewVisitForm(@PathVariable("petId") int petId, Visit visit, BindingResult result,
+			@RequestParam(name = "holdToken", required = false) String holdToken, Map<String, Object> model) {
+		String token = holdSlot(visit, holdToken, result, model);
+		offerFreeSlots(visit, token, model);
 		return "pets/createOrUpdateVisitForm";
 	}
 
 	// Spring MVC calls method loadPetWithVisit(...) before processNewVisitForm is called
 	@PostMapping("/owners/{ownerId}/pets/{petId}/visits/new")
-	public String processNewVisitForm(@Valid Visit visit, BindingResult result) {
+	public String processNewVisitForm(@Valid Visit visit, BindingResult result,
+			@RequestParam(name = "holdToken", required = false) String holdToken, Map<String, Object> model) {
 		validateVisit(visit, result);
+		// only the owner of the hold on the slot may go on to the database
+		String token = holdSlot(visit, holdToken, result, model);
 
 		if (result.hasErrors()) {
+			offerFreeSlots(visit, token, model);
 			return "pets/createOrUpdateVisitForm";
 		}
 		else {
 			try {
-				this.visits.save(visit);
+				this.availability.book(visit);
 			} catch (DataIntegrityViolationException e) {
-				String err = "Appointment conflict. Looks like this time has been booked by some other pet. Please select different date and time.";
+				String err = "Appointment conflict. Looks like this time has been booked by some other pet. Please select one of the free times.";
 				FieldError error = new FieldError("visit", "time", err);
 				result.addError(error);
+				releaseSlot(token);
+				model.remove("holdToken");
+				offerFreeSlots(visit, null, model);
 				return "pets/createOrUpdateVisitForm";
 			}
+			releaseSlot(token);
 			return "redirect:/owners/{ownerId}";
 		}
 	}
 
+	// Spring MVC calls method loadPetWithVisit(...) before this handler is called, which
+	// books the earliest time of the chosen day that is free and not held
+	@PostMapping(path = "/owners/{ownerId}/pets/{petId}/visits/new", params = "firstAvailable")
+	public String processNewFirstAvailableVisitForm(@Valid Visit visit, BindingResult result,
+			@RequestParam(name = "holdToken", required = false) String holdToken, Map<String, Object> model) {
+		visit.setTime(null);
+		validateVisit(visit, result);
+		if (visit.getVet() == null) {
+			result.addError(new FieldError("visit", "vet", "A vet is required to find the first free time"));
+		}
+		if (!result.hasErrors()) {
+			Integer vetId = visit.getVet().getId();
+			LocalDate date = visit.getDate();
+			Integer duration = visit.getDuration();
+			boolean booked = this.availability.bookFirstAvailable(visit, time -> !isPast(date, time)
+					&& endsBeforeMidnight(time, duration)
+					&& !this.holds.isHeldByOther(vetId, date, time.getStartMinute(), end(time, duration), holdToken));
+			if (!booked) {
+				result.addError(
+						new FieldError("visit", "time", "No free time left on this day. Please select another day."));
+			}
+		}
+		if (result.hasErrors()) {
+			offerFreeSlots(visit, holdToken, model);
+			return "pets/createOrUpdateVisitForm";
+		}
+		if (holdToken != null) {
+			this.holds.release(holdToken);
+		}
+		return "redirect:/owners/{ownerId}";
+	}
+
+	@GetMapping("/owners/*/pets/{petId}/visits/series/new")
+	public String initNewVisitSeriesForm(Recurrence recurrence) {
+		return "pets/createVisitSeriesForm";
+	}
+
+	// books every visit of the series that is free, and lists the ones that are not
+	@PostMapping("/owners/{ownerId}/pets/{petId}/visits/series/new")
+	public String processNewVisitSeriesForm(@PathVariable("ownerId") int ownerId, @Valid Visit visit,
+			BindingResult result, @Valid Recurrence recurrence, BindingResult recurrenceResult,
+			Map<String, Object> model) {
+		validateVisit(visit, result);
+		if (visit.getVet() == null) {
+			result.addError(new FieldError("visit", "vet", "A vet is required for recurring visits"));
+		}
+		if (visit.getTime() == null) {
+			result.addError(new FieldError("visit", "time", "A time is required for recurring visits"));
+		}
+		if (recurrence.getCount() == null && recurrence.getUntil() == null) {
+			recurrenceResult.addError(new FieldError("recurrence", "count", "Enter a number of visits or a last day"));
+		}
+		if (recurrence.getUntil() != null && recurrence.getUntil().isBefore(visit.getDate())) {
+			recurrenceResult
+					.addError(new FieldError("recurrence", "until", "The last day can not be before the first"));
+		}
+		if (result.hasErrors() || recurrenceResult.hasErrors()) {
+			return "pets/createVisitSeriesForm";
+		}
+		VisitSeries series = this.seriesBooking.book(visit, recurrence);
+		model.put("series", series);
+		model.put("ownerId", ownerId);
+		return "pets/createVisitSeriesForm";
+	}
+
 	@GetMapping("/owners/{ownerId}/pets/{petId}/visits/{visitId}/cancel")
-	public String processCancelVisitForm(@PathVariable("ownerId") int ownerId,
-		@PathVariable("petId") int petId,
-		@PathVariable("visitId") int visitId,
-		Map<String, Object> model) {
+	public String processCancelVisitForm(@PathVariable("ownerId") int ownerId, @PathVariable("petId") int petId,
+			@PathVariable("visitId") int visitId, Map<String, Object> model) {
 
-		visits.deleteById(visitId);
+		this.availability.cancel(visitId);
 
 		return "redirect:/owners/{ownerId}";
 	}
@@ -139,21 +228,70 @@ class VisitController {
 			result.addError(error);
 		}
 
-		DayOfWeek d = date.getDayOfWeek();
-		boolean weekend = d == DayOfWeek.SATURDAY || d == DayOfWeek.SUNDAY;
-		if (weekend) {
+		if (!WorkingHour.isWorkingDay(date)) {
 			String err = "Appointment can not be scheduled on weekend";
 			FieldError error = new FieldError("visit", "date", err);
 			result.addError(error);
 		}
 
 		WorkingHour wh = visit.getTime();
-		LocalTime localTime = LocalTime.parse(wh.getName().toUpperCase(), DateTimeFormatter.ofPattern("[h:mm a][hh:mm a]"));
-		LocalTime now = LocalTime.now().plusHours(1);
-		if (date.isEqual(today) && localTime.isBefore(now)) {
+		if (wh == null) {
+			return;
+		}
+		if (isPast(date, wh)) {
 			String err = "Appointment can not be scheduled in the past";
 			FieldError error = new FieldError("visit", "time", err);
 			result.addError(error);
 		}
+		if (visit.getEndMinute() > WorkingHour.MINUTES_PER_DAY) {
+			String err = "Appointment must end on the day it starts";
+			FieldError error = new FieldError("visit", "duration", err);
+			result.addError(error);
+		}
+	}
+
+	private static boolean isPast(LocalDate date, WorkingHour time) {
+		return time.getStartMinute() < WorkingHour.firstBookableMinute(date);
+	}
+
+	private static boolean endsBeforeMidnight(WorkingHour time, Integer duration) {
+		return end(time, duration) <= WorkingHour.MINUTES_PER_DAY;
+	}
+
+	private static int end(WorkingHour time, Integer duration) {
+		return time.getStartMinute() + (duration != null ? duration : time.getDuration());
+	}
+
+	private String holdSlot(Visit visit, String holdToken, BindingResult result, Map<String, Object> model) {
+		if (visit.getVet() == null || visit.getDate() == null || visit.getTime() == null) {
+			return null;
+		}
+		String token = this.holds.hold(visit.getVet().getId(), visit.getDate(), visit.getStartMinute(),
+				visit.getEndMinute(), holdToken);
+		if (token == null) {
+			String err = "This time is being booked for some other pet. Please select one of the free times.";
+			result.addError(new FieldError("visit", "time", err));
+		}
+		else {
+			model.put("holdToken", token);
+		}
+		return token;
+	}
+
+	private void releaseSlot(String token) {
+		if (token != null) {
+			this.holds.release(token);
+		}
+	}
+
+	private void offerFreeSlots(Visit visit, String holdToken, Map<String, Object> model) {
+		if (visit.getVet() != null && visit.getDate() != null) {
+			Integer vetId = visit.getVet().getId();
+			List<WorkingHour> free = this.availability.findFreeSlots(vetId, visit.getDate(), visit.getDuration());
+			Integer duration = visit.getDuration();
+			free.removeIf(time -> this.holds.isHeldByOther(vetId, visit.getDate(), time.getStartMinute(),
+					end(time, duration), holdToken));
+			model.put("workingHours", free);
+		}
 	}
 }
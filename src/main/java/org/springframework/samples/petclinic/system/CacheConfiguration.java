@@ -13,43 +13,109 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-
 package org.springframework.samples.petclinic.system;
 
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.impl.config.copy.DefaultCopierConfiguration;
+import org.ehcache.impl.copy.SerializingCopier;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.config.ConfigurationElementState;
+import org.ehcache.jsr107.config.Jsr107CacheConfiguration;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-
-import javax.cache.configuration.MutableConfiguration;
+import org.springframework.samples.petclinic.owner.PetType;
+import org.springframework.samples.petclinic.vet.Specialty;
+import org.springframework.samples.petclinic.vet.Vet;
+import org.springframework.samples.petclinic.visit.WorkingHour;
 
 /**
  * Cache configuration intended for caches providing the JCache API. This configuration
- * creates the used cache for the application and enables statistics that become
- * accessible via JMX.
+ * creates the used caches for the application, each bounded and expiring as configured
+ * through {@link CacheRegionProperties}, and enables statistics that become accessible
+ * via JMX.
+ * <p>
+ * The same cache manager backs the Hibernate second-level cache of the reference entities
+ * and the query cache. Its hit and miss counts are published as {@code hibernate.*}
+ * metrics when {@code hibernate.generate_statistics} is enabled.
+ * </p>
  */
 @Configuration(proxyBeanMethods = false)
 @EnableCaching
+@EnableConfigurationProperties(CacheRegionProperties.class)
 class CacheConfiguration {
 
 	@Bean
-	public JCacheManagerCustomizer petclinicCacheConfigurationCustomizer() {
+	public JCacheManagerCustomizer petclinicCacheConfigurationCustomizer(CacheRegionProperties regions) {
 		return cm -> {
-			cm.createCache("vets", cacheConfiguration());
+			// the default JCache manager is shared by all application contexts of the JVM
+			createCache(cm, "vets", cacheConfiguration(regions.getVets(), true));
+			createCache(cm, "vetPages", cacheConfiguration(regions.getVetPages(), true));
+			createCache(cm, "vet", cacheConfiguration(regions.getVet(), true));
+			createCache(cm, "ownerCounts", cacheConfiguration(regions.getOwnerCounts(), false));
+			createCache(cm, "ownerSuggestions", cacheConfiguration(regions.getOwnerSuggestions(), false));
+			for (String entity : new String[] { Vet.class.getName(), Vet.class.getName() + ".specialties",
+					Specialty.class.getName(), PetType.class.getName(), WorkingHour.class.getName() }) {
+				createCache(cm, entity, cacheConfiguration(regions.getEntities(), false));
+			}
+			createCache(cm, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+					cacheConfiguration(regions.getQueries(), false));
+			// holds one entry per table, which must outlive every cached query result
+			createCache(cm, RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+					cacheConfiguration(new CacheRegionProperties.Region(1000, null), false));
 		};
 	}
 
 	/**
-	 * Create a simple configuration that enable statistics via the JCache programmatic
-	 * configuration API.
+	 * Let Hibernate use the application's cache manager for its second-level cache rather
+	 * than looking one up by itself.
+	 */
+	@Bean
+	public HibernatePropertiesCustomizer petclinicSecondLevelCacheCustomizer(
+			ObjectProvider<javax.cache.CacheManager> cacheManager) {
+		return properties -> cacheManager.ifAvailable(manager -> properties.put(ConfigSettings.CACHE_MANAGER, manager));
+	}
+
+	private static void createCache(javax.cache.CacheManager cm, String name,
+			javax.cache.configuration.Configuration<Object, Object> configuration) {
+		if (cm.getCache(name) == null) {
+			cm.createCache(name, configuration);
+		}
+	}
+
+	/**
+	 * Create a configuration for the given region with statistics enabled.
 	 * <p>
 	 * Within the configuration object that is provided by the JCache API standard, there
 	 * is only a very limited set of configuration options. The really relevant
-	 * configuration options (like the size limit) must be set via a configuration
-	 * mechanism that is provided by the selected JCache implementation.
+	 * configuration options (like the size limit) are set via the Ehcache configuration
+	 * API instead.
+	 * @param region the size and expiry of the region
+	 * @param storeByValue whether to hand out copies of the cached values, for entities
+	 * that callers may modify
 	 */
-	private javax.cache.configuration.Configuration<Object, Object> cacheConfiguration() {
-		return new MutableConfiguration<>().setStatisticsEnabled(true);
+	private javax.cache.configuration.Configuration<Object, Object> cacheConfiguration(
+			CacheRegionProperties.Region region, boolean storeByValue) {
+		CacheConfigurationBuilder<Object, Object> builder = CacheConfigurationBuilder
+				.newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(region.getHeap()))
+				.withService(new Jsr107CacheConfiguration(ConfigurationElementState.ENABLED,
+						ConfigurationElementState.DISABLED));
+		if (region.getTtl() != null) {
+			builder = builder.withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(region.getTtl()));
+		}
+		if (storeByValue) {
+			builder = builder.withService(new DefaultCopierConfiguration<>(SerializingCopier.asCopierClass(),
+					DefaultCopierConfiguration.Type.VALUE));
+		}
+		return Eh107Configuration.fromEhcacheCacheConfiguration(builder);
 	}
 
 }
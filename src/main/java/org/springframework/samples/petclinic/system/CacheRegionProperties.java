@@ -0,0 +1,125 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Size and expiry of each cache region, bound from {@code petclinic.cache.*}.
+ */
+@ConfigurationProperties("petclinic.cache")
+public class CacheRegionProperties {
+
+	/**
+	 * The list of all vets.
+	 */
+	private final Region vets = new Region(1, null);
+
+	/**
+	 * Pages of the vet list.
+	 */
+	private final Region vetPages = new Region(100, null);
+
+	/**
+	 * Single vets by id.
+	 */
+	private final Region vet = new Region(500, null);
+
+	/**
+	 * Owner counts by last name prefix.
+	 */
+	private final Region ownerCounts = new Region(1000, Duration.ofMinutes(10));
+
+	/**
+	 * Owner typeahead suggestions by last name prefix.
+	 */
+	private final Region ownerSuggestions = new Region(500, null);
+
+	/**
+	 * Each Hibernate second-level cache region of a reference entity or collection.
+	 */
+	private final Region entities = new Region(1000, null);
+
+	/**
+	 * Hibernate query cache results.
+	 */
+	private final Region queries = new Region(100, null);
+
+	public Region getVets() {
+		return this.vets;
+	}
+
+	public Region getVetPages() {
+		return this.vetPages;
+	}
+
+	public Region getVet() {
+		return this.vet;
+	}
+
+	public Region getOwnerCounts() {
+		return this.ownerCounts;
+	}
+
+	public Region getOwnerSuggestions() {
+		return this.ownerSuggestions;
+	}
+
+	public Region getEntities() {
+		return this.entities;
+	}
+
+	public Region getQueries() {
+		return this.queries;
+	}
+
+	public static class Region {
+
+		/**
+		 * Maximum number of entries kept on heap.
+		 */
+		private long heap;
+
+		/**
+		 * Time after which an entry expires, or none to keep entries until evicted.
+		 */
+		private Duration ttl;
+
+		Region(long heap, Duration ttl) {
+			this.heap = heap;
+			this.ttl = ttl;
+		}
+
+		public long getHeap() {
+			return this.heap;
+		}
+
+		public void setHeap(long heap) {
+			this.heap = heap;
+		}
+
+		public Duration getTtl() {
+			return this.ttl;
+		}
+
+		public void setTtl(Duration ttl) {
+			this.ttl = ttl;
+		}
+
+	}
+
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import org.springframework.samples.petclinic.model.BaseEntity;
+import org.springframework.samples.petclinic.owner.PetRepository;
+import org.springframework.samples.petclinic.owner.PetType;
+import org.springframework.samples.petclinic.vet.Specialty;
+import org.springframework.samples.petclinic.vet.Vet;
+import org.springframework.samples.petclinic.vet.VetRepository;
+import org.springframework.samples.petclinic.visit.VisitRepository;
+import org.springframework.samples.petclinic.visit.WorkingHour;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Registry of the small, rarely written tables that forms select from: vets, pet types,
+ * specialties and working hours. Each table is held as immutable maps by id and by name
+ * so that formatters resolve submitted values without touching the database. Lookups
+ * return {@code null} for unknown ids and names. Pet types are looked up by name ignoring
+ * case, as imported files spell them freely. Vets are also indexed by specialty.
+ * <p>
+ * The tables are loaded together on first use and dropped once a write reported by a
+ * {@link ReferenceDataChangedEvent} commits. Saving a {@link Vet} publishes such an
+ * event; pet types, specialties and working hours are not written by the application.
+ * </p>
+ */
+@Component
+public class ReferenceData {
+
+	private final VetRepository vets;
+
+	private final PetRepository pets;
+
+	private final VisitRepository visits;
+
+	private volatile Tables tables;
+
+	public ReferenceData(VetRepository vets, PetRepository pets, VisitRepository visits) {
+		this.vets = vets;
+		this.pets = pets;
+		this.visits = visits;
+	}
+
+	public Vet findVet(int id) {
+		return tables().vets.byId.get(id);
+	}
+
+	/**
+	 * Return the vets having a specialty.
+	 * @param specialtyId the id of the specialty
+	 * @return the vets ordered by id, or an empty list for an unknown specialty
+	 */
+	public List<Vet> findVetsBySpecialty(int specialtyId) {
+		return tables().vetsBySpecialty.getOrDefault(specialtyId, Collections.emptyList());
+	}
+
+	public PetType findPetType(int id) {
+		return tables().petTypes.byId.get(id);
+	}
+
+	/**
+	 * Return the pet type of a name, ignoring case.
+	 * @param name the name of the pet type
+	 * @return the pet type, or {@code null} if unknown
+	 */
+	public PetType findPetType(String name) {
+		return tables().petTypes.byName.get(name.toLowerCase(Locale.ROOT));
+	}
+
+	public Specialty findSpecialty(int id) {
+		return tables().specialties.byId.get(id);
+	}
+
+	public Specialty findSpecialty(String name) {
+		return tables().specialties.byName.get(name);
+	}
+
+	public WorkingHour findWorkingHour(int id) {
+		return tables().workingHours.byId.get(id);
+	}
+
+	public WorkingHour findWorkingHour(String name) {
+		return tables().workingHours.byName.get(name);
+	}
+
+	/**
+	 * Drop all tables, which are reloaded on next use.
+	 */
+	public synchronized void invalidate() {
+		this.tables = null;
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onChange(ReferenceDataChangedEvent event) {
+		invalidate();
+	}
+
+	private Tables tables() {
+		Tables tables = this.tables;
+		return tables != null ? tables : load();
+	}
+
+	// synchronized with invalidate() so that a load racing with a write is dropped
+	private synchronized Tables load() {
+		if (this.tables == null) {
+			this.tables = new Tables(this.vets.findAll(), this.pets.findPetTypes(), this.vets.findSpecialties(),
+					this.visits.findWorkingHours());
+		}
+		return this.tables;
+	}
+
+	private static final class Tables {
+
+		private final Table<Vet> vets;
+
+		private final Table<PetType> petTypes;
+
+		private final Table<Specialty> specialties;
+
+		private final Table<WorkingHour> workingHours;
+
+		private final Map<Integer, List<Vet>> vetsBySpecialty;
+
+		Tables(Collection<Vet> vets, Collection<PetType> petTypes, Collection<Specialty> specialties,
+				Collection<WorkingHour> workingHours) {
+			this.vets = new Table<>(vets, vet -> vet.getFirstName() + " " + vet.getLastName());
+			this.petTypes = new Table<>(petTypes, type -> type.getName().toLowerCase(Locale.ROOT));
+			this.specialties = new Table<>(specialties, Specialty::getName);
+			this.workingHours = new Table<>(workingHours, WorkingHour::getName);
+			Map<Integer, List<Vet>> vetsBySpecialty = new LinkedHashMap<>();
+			vets.stream().sorted(Comparator.comparing(Vet::getId)).forEach(vet -> vet.getSpecialties().forEach(
+					specialty -> vetsBySpecialty.computeIfAbsent(specialty.getId(), id -> new ArrayList<>()).add(vet)));
+			vetsBySpecialty.replaceAll((id, specialists) -> Collections.unmodifiableList(specialists));
+			this.vetsBySpecialty = Collections.unmodifiableMap(vetsBySpecialty);
+		}
+
+	}
+
+	private static final class Table<T extends BaseEntity> {
+
+		private final Map<Integer, T> byId;
+
+		private final Map<String, T> byName;
+
+		Table(Collection<T> rows, Function<T, String> name) {
+			Map<Integer, T> byId = new LinkedHashMap<>();
+			Map<String, T> byName = new LinkedHashMap<>();
+			for (T row : rows) {
+				byId.put(row.getId(), row);
+				byName.putIfAbsent(name.apply(row), row);
+			}
+			this.byId = Collections.unmodifiableMap(byId);
+			this.byName = Collections.unmodifiableMap(byName);
+		}
+
+	}
+
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+/**
+ * Published when an entity held by {@link ReferenceData} is written, so that the registry
+ * reloads on next use.
+ */
+public class ReferenceDataChangedEvent {
+
+	private final Class<?> type;
+
+	public ReferenceDataChangedEvent(Class<?> type) {
+		this.type = type;
+	}
+
+	/**
+	 * @return the type of the entity that was written
+	 */
+	public Class<?> getType() {
+		return this.type;
+	}
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.vet;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import org.springframework.samples.petclinic.visit.WorkingHour;
+
+/**
+ * A free working hour of a vet on a given day, as found by {@link FreeSlotSearch}.
+ */
+public class FreeSlot {
+
+	private final int vetId;
+
+	private final String vetName;
+
+	private final LocalDate date;
+
+	private final int timeId;
+
+	private final String time;
+
+	private final LocalTime start;
+
+	FreeSlot(Vet vet, LocalDate date, WorkingHour time) {
+		this.vetId = vet.getId();
+		this.vetName = vet.getFirstName() + " " + vet.getLastName();
+		this.date = date;
+		this.timeId = time.getId();
+		this.time = time.getName();
+		this.start = time.getStart();
+	}
+
+	public int getVetId() {
+		return this.vetId;
+	}
+
+	public String getVetName() {
+		return this.vetName;
+	}
+
+	public LocalDate getDate() {
+		return this.date;
+	}
+
+	public int getTimeId() {
+		return this.timeId;
+	}
+
+	public String getTime() {
+		return this.time;
+	}
+
+	public LocalTime getStart() {
+		return this.start;
+	}
+
+}
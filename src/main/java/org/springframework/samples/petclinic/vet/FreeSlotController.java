@@ -0,0 +1,68 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.vet;
+
+import java.time.LocalDate;
+import java.util.List;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.samples.petclinic.system.ReferenceData;
+import org.springframework.samples.petclinic.visit.WorkingHour;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * JSON list of the earliest free slots with any vet of a specialty, such as
+ * {@code /vets/free-slots?specialty=surgery&limit=3}.
+ */
+@RestController
+class FreeSlotController {
+
+	private static final int MAX_DAYS = 92;
+
+	private static final int MAX_LIMIT = 100;
+
+	private final FreeSlotSearch search;
+
+	private final ReferenceData referenceData;
+
+	FreeSlotController(FreeSlotSearch search, ReferenceData referenceData) {
+		this.search = search;
+		this.referenceData = referenceData;
+	}
+
+	@GetMapping("/vets/free-slots")
+	public List<FreeSlot> findFreeSlots(@RequestParam("specialty") String specialtyName,
+			@RequestParam(name = "from", required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate from,
+			@RequestParam(name = "days", defaultValue = "14") int days,
+			@RequestParam(name = "limit", defaultValue = "5") int limit,
+			@RequestParam(name = "duration", required = false) Integer duration) {
+		Specialty specialty = this.referenceData.findSpecialty(specialtyName);
+		if (specialty == null) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Specialty not found: " + specialtyName);
+		}
+		if (days < 1 || days > MAX_DAYS || limit < 1 || limit > MAX_LIMIT
+				|| (duration != null && (duration < 1 || duration > WorkingHour.MINUTES_PER_DAY))) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+					"Search at most " + MAX_DAYS + " days for at most " + MAX_LIMIT + " slots");
+		}
+		LocalDate first = from != null ? from : LocalDate.now();
+		return this.search.findEarliest(specialty, first, first.plusDays(days - 1), limit, duration);
+	}
+
+}
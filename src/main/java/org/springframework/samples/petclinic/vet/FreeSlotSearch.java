@@ -0,0 +1,108 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.vet;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.springframework.samples.petclinic.system.ReferenceData;
+import org.springframework.samples.petclinic.visit.DaySchedule;
+import org.springframework.samples.petclinic.visit.MonthOccupancy;
+import org.springframework.samples.petclinic.visit.SlotAvailability;
+import org.springframework.samples.petclinic.visit.SlotHolds;
+import org.springframework.samples.petclinic.visit.WorkingHour;
+import org.springframework.stereotype.Component;
+
+/**
+ * Finds the earliest free working hours of any vet with a given specialty. Candidate vets
+ * come from the specialty index of {@link ReferenceData} and their bookings from the
+ * occupancy kept by {@link SlotAvailability}, so a search only reaches the database to
+ * load months no one has looked at yet, and then once per vet for the whole range.
+ * <p>
+ * Days are walked in order and, within a day, working hours by start time, checking every
+ * candidate vet before moving on; the search stops as soon as enough slots are found.
+ * Weekends and the coming hour are skipped, as they cannot be booked, and so are slots
+ * held by a visit form being filled in.
+ * </p>
+ */
+@Component
+public class FreeSlotSearch {
+
+	private final ReferenceData referenceData;
+
+	private final SlotAvailability availability;
+
+	private final SlotHolds holds;
+
+	public FreeSlotSearch(ReferenceData referenceData, SlotAvailability availability, SlotHolds holds) {
+		this.referenceData = referenceData;
+		this.availability = availability;
+		this.holds = holds;
+	}
+
+	/**
+	 * Return the earliest free slots of the vets having a specialty.
+	 * @param specialty the specialty
+	 * @param from the first day to look at
+	 * @param to the last day to look at, inclusive
+	 * @param limit the maximum number of slots to return
+	 * @param duration the length of the visit in minutes, or {@code null} for the length
+	 * of each working hour
+	 * @return the free slots ordered by day, start and vet id
+	 */
+	public List<FreeSlot> findEarliest(Specialty specialty, LocalDate from, LocalDate to, int limit, Integer duration) {
+		List<Vet> vets = this.referenceData.findVetsBySpecialty(specialty.getId());
+		List<WorkingHour> hours = this.availability.getSlots();
+		List<FreeSlot> found = new ArrayList<>(limit);
+		LocalDate today = LocalDate.now();
+		LocalDate first = from.isBefore(today) ? today : from;
+		if (first.isAfter(to)) {
+			return found;
+		}
+		List<Map<YearMonth, MonthOccupancy>> months = new ArrayList<>(vets.size());
+		for (Vet vet : vets) {
+			months.add(this.availability.getMonths(vet.getId(), YearMonth.from(first), YearMonth.from(to)));
+		}
+		DaySchedule[] schedules = new DaySchedule[vets.size()];
+		for (LocalDate date = first; !date.isAfter(to) && found.size() < limit; date = date.plusDays(1)) {
+			int earliest = WorkingHour.firstBookableMinute(date);
+			// today is skipped entirely once the coming hour reaches into tomorrow
+			if (!WorkingHour.isWorkingDay(date) || earliest == WorkingHour.MINUTES_PER_DAY) {
+				continue;
+			}
+			for (int vet = 0; vet < vets.size(); vet++) {
+				schedules[vet] = months.get(vet).get(YearMonth.from(date)).getSchedule(date);
+			}
+			for (WorkingHour time : hours) {
+				if (time.getStartMinute() < earliest) {
+					continue;
+				}
+				int end = time.getStartMinute() + (duration != null ? duration : time.getDuration());
+				for (int vet = 0; vet < vets.size() && found.size() < limit; vet++) {
+					Integer vetId = vets.get(vet).getId();
+					if (!schedules[vet].overlaps(time.getStartMinute(), end)
+							&& !this.holds.isHeldByOther(vetId, date, time.getStartMinute(), end, null)) {
+						found.add(new FreeSlot(vets.get(vet), date, time));
+					}
+				}
+			}
+		}
+		return found;
+	}
+
+}
@@ -18,6 +18,9 @@ package org.springframework.samples.petclinic.vet;
 import java.io.Serializable;
 import javax.persistence.Entity;
 import javax.persistence.Table;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
 import org.springframework.samples.petclinic.model.NamedEntity;
 
 /**
@@ -27,6 +30,8 @@ import org.springframework.samples.petclinic.model.NamedEntity;
  */
 @Entity
 @Table(name = "specialties")
+@Immutable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY)
 public class Specialty extends NamedEntity implements Serializable, Comparable<Specialty> {
 
 	@Override
@@ -1,10 +1,10 @@
 package org.springframework.samples.petclinic.vet;
 
 import java.text.ParseException;
-import java.util.Collection;
 import java.util.Locale;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.Formatter;
+import org.springframework.samples.petclinic.system.ReferenceData;
 import org.springframework.stereotype.Component;
 
 /**
@@ -13,11 +13,11 @@ import org.springframework.stereotype.Component;
 @Component
 public class SpecialtyFormatter implements Formatter<Specialty> {
 
-	private final VetRepository vets;
+	private final ReferenceData referenceData;
 
 	@Autowired
-	public SpecialtyFormatter(VetRepository vets) {
-		this.vets = vets;
+	public SpecialtyFormatter(ReferenceData referenceData) {
+		this.referenceData = referenceData;
 	}
 
 	@Override
@@ -27,11 +27,9 @@ public class SpecialtyFormatter implements Formatter<Specialty> {
 
 	@Override
 	public Specialty parse(String text, Locale locale) throws ParseException {
-		Collection<Specialty> findSpecialties = this.vets.findSpecialties();
-		for (Specialty spec : findSpecialties) {
-			if (spec.getName().equals(text)) {
-				return spec;
-			}
+		Specialty spec = this.referenceData.findSpecialty(text);
+		if (spec != null) {
+			return spec;
 		}
 		throw new ParseException("Specialty not found: " + text, 0);
 	}
@@ -15,12 +15,8 @@
  */
 package org.springframework.samples.petclinic.vet;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.LinkedHashSet;
-import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
 import javax.persistence.Entity;
@@ -28,12 +24,18 @@ import javax.persistence.FetchType;
 import javax.persistence.JoinColumn;
 import javax.persistence.JoinTable;
 import javax.persistence.ManyToMany;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.PrePersist;
 import javax.persistence.Table;
 import javax.persistence.Transient;
-import org.springframework.beans.support.MutableSortDefinition;
-import org.springframework.beans.support.PropertyComparator;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.springframework.data.domain.AfterDomainEventPublication;
+import org.springframework.data.domain.DomainEvents;
 import org.springframework.samples.petclinic.model.Person;
-import org.springframework.samples.petclinic.visit.Visit;
+import org.springframework.samples.petclinic.system.ReferenceDataChangedEvent;
 
 /**
  * Simple JavaBean domain object representing a veterinarian.
@@ -45,15 +47,26 @@ import org.springframework.samples.petclinic.visit.Visit;
  */
 @Entity
 @Table(name = "vets")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NamedEntityGraph(name = Vet.SPECIALTIES_GRAPH, attributeNodes = @NamedAttributeNode("specialties"))
 public class Vet extends Person {
 
-	@ManyToMany(fetch = FetchType.EAGER)
+	/**
+	 * Fetch plan that loads a vet together with its specialties, for the pages and caches
+	 * that show them.
+	 */
+	public static final String SPECIALTIES_GRAPH = "Vet.specialties";
+
+	// specialties missing from the cache are loaded for up to 100 vets per statement
+	@ManyToMany(fetch = FetchType.LAZY)
+	@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+	@BatchSize(size = 100)
 	@JoinTable(name = "vet_specialties", joinColumns = @JoinColumn(name = "vet_id"),
 			inverseJoinColumns = @JoinColumn(name = "specialty_id"))
 	private Set<Specialty> specialties;
 
 	@Transient
-	private Set<Visit> visits = new LinkedHashSet<>();
+	private boolean created;
 
 	public Set<Specialty> getSpecialties() {
 		if (this.specialties == null) {
@@ -74,21 +87,23 @@ public class Vet extends Person {
 		getSpecialties().add(specialty);
 	}
 
-	protected Set<Visit> getVisitsInternal() {
-		if (this.visits == null) {
-			this.visits = new HashSet<>();
-		}
-		return this.visits;
+	@PrePersist
+	void markCreated() {
+		this.created = true;
 	}
 
-	protected void setVisitsInternal(Collection<Visit> visits) {
-		this.visits = new LinkedHashSet<>(visits);
+	/**
+	 * Published by {@link VetRepository#save(Vet)}.
+	 * @return the events to publish when this vet is saved
+	 */
+	@DomainEvents
+	Collection<Object> domainEvents() {
+		return Arrays.asList(new ReferenceDataChangedEvent(Vet.class), new VetSavedEvent(getId(), this.created));
 	}
 
-	public List<Visit> getVisits() {
-		List<Visit> sortedVisits = new ArrayList<>(getVisitsInternal());
-		PropertyComparator.sort(sortedVisits, new MutableSortDefinition("date", false, false));
-		return Collections.unmodifiableList(sortedVisits);
+	@AfterDomainEventPublication
+	void clearDomainEvents() {
+		this.created = false;
 	}
 
 	@Override
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.vet;
+
+import java.time.YearMonth;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.samples.petclinic.system.ReferenceData;
+import org.springframework.samples.petclinic.visit.AvailabilityCalendar;
+import org.springframework.samples.petclinic.visit.SlotAvailability;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * JSON calendar of the free and booked slots of a vet, served from the in-memory
+ * occupancy kept by {@link SlotAvailability} rather than from the visits table. Calendars
+ * are served from a year back up to the last month kept in memory, past months being read
+ * from the visits table.
+ */
+@RestController
+class VetAvailabilityController {
+
+	private static final int MONTHS_BACK = 12;
+
+	private final SlotAvailability availability;
+
+	private final ReferenceData referenceData;
+
+	private final int monthsAhead;
+
+	VetAvailabilityController(SlotAvailability availability, ReferenceData referenceData,
+			@Value("${petclinic.visits.occupancy-months:12}") int monthsAhead) {
+		this.availability = availability;
+		this.referenceData = referenceData;
+		this.monthsAhead = monthsAhead;
+	}
+
+	@GetMapping("/vets/{vetId}/availability")
+	public AvailabilityCalendar showAvailability(@PathVariable("vetId") int vetId,
+			@RequestParam(name = "month", required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth month) {
+		if (this.referenceData.findVet(vetId) == null) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Vet not found: " + vetId);
+		}
+		YearMonth current = YearMonth.now();
+		if (month == null) {
+			month = current;
+		}
+		else if (month.isBefore(current.minusMonths(MONTHS_BACK))
+				|| month.isAfter(current.plusMonths(this.monthsAhead))) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Month out of range: " + month);
+		}
+		return this.availability.getCalendar(vetId, month);
+	}
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.vet;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Evicts the cached entries that show a vet once a save of that vet commits. The single
+ * vet and the full list are always dropped, but of the cached pages of vet ids only those
+ * listing the vet, unless a new vet shifted every page.
+ */
+@Component
+class VetCacheEvictor {
+
+	private final CacheManager cacheManager;
+
+	VetCacheEvictor(CacheManager cacheManager) {
+		this.cacheManager = cacheManager;
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onVetSaved(VetSavedEvent event) {
+		evict("vet", event.getVetId());
+		clear("vets");
+		Cache pages = this.cacheManager.getCache("vetPages");
+		if (pages == null) {
+			return;
+		}
+		if (event.isCreated() || !(pages.getNativeCache() instanceof javax.cache.Cache)) {
+			pages.clear();
+			return;
+		}
+		@SuppressWarnings("unchecked")
+		javax.cache.Cache<Object, Object> entries = (javax.cache.Cache<Object, Object>) pages.getNativeCache();
+		for (javax.cache.Cache.Entry<Object, Object> entry : entries) {
+			if (lists(entry.getValue(), event.getVetId())) {
+				entries.remove(entry.getKey());
+			}
+		}
+	}
+
+	private static boolean lists(Object page, Integer vetId) {
+		return page instanceof Page && ((Page<?>) page).getContent().stream().anyMatch(vetId::equals);
+	}
+
+	private void evict(String name, Object key) {
+		Cache cache = this.cacheManager.getCache(name);
+		if (cache != null) {
+			cache.evict(key);
+		}
+	}
+
+	private void clear(String name) {
+		Cache cache = this.cacheManager.getCache(name);
+		if (cache != null) {
+			cache.clear();
+		}
+	}
+
+}
@@ -15,14 +15,18 @@
  */
 package org.springframework.samples.petclinic.vet;
 
+import java.time.LocalDate;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import javax.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.samples.petclinic.visit.Visit;
+import org.springframework.samples.petclinic.model.Keyset;
+import org.springframework.samples.petclinic.model.KeysetSlice;
 import org.springframework.samples.petclinic.visit.VisitRepository;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -45,13 +49,21 @@ class VetController {
 
 	private static final String VIEWS_VET_CREATE_OR_UPDATE_FORM = "vets/createOrUpdateVetForm";
 
+	private static final int PAGE_SIZE = 5;
+
+	private static final int VISITS_PAGE_SIZE = 10;
+
 	private final VetRepository vets;
+
 	private final VisitRepository visits;
 
-	public VetController(VetRepository clinicService,
-		VisitRepository visits) {
+	private final boolean keysetPagination;
+
+	public VetController(VetRepository clinicService, VisitRepository visits,
+			@Value("${petclinic.pagination.keyset:false}") boolean keysetPagination) {
 		this.vets = clinicService;
 		this.visits = visits;
+		this.keysetPagination = keysetPagination;
 	}
 
 	@ModelAttribute("allSpecialties")
@@ -98,22 +110,38 @@ class VetController {
 	}
 
 	/**
-	 * Custom handler for displaying an vet.
+	 * Custom handler for displaying an vet. Upcoming visits are listed first, then past
+	 * visits latest first, each a window of {@value #VISITS_PAGE_SIZE} visits paged on
+	 * demand.
 	 * @param vetId the ID of the vet to display
+	 * @param upcoming the window of upcoming visits to show
+	 * @param past the window of past visits to show
 	 * @return a ModelMap with the model attributes for the view
 	 */
 	@GetMapping("/vets/{vetId}")
-	public ModelAndView showVet(@PathVariable("vetId") int vetId) {
+	public ModelAndView showVet(@PathVariable("vetId") int vetId,
+			@RequestParam(name = "upcoming", defaultValue = "0") int upcoming,
+			@RequestParam(name = "past", defaultValue = "0") int past) {
 		ModelAndView mav = new ModelAndView("vets/vetDetails");
 		Vet vet = this.vets.findById(vetId);
-		List<Visit> visits = this.visits.findByVetId(vet.getId());
-		vet.setVisitsInternal(visits);
+		LocalDate today = LocalDate.now();
 		mav.addObject(vet);
+		mav.addObject("upcomingVisits", this.visits.findUpcomingByVetId(vet.getId(), today,
+				PageRequest.of(Math.max(upcoming, 0), VISITS_PAGE_SIZE)));
+		mav.addObject("pastVisits",
+				this.visits.findPastByVetId(vet.getId(), today, PageRequest.of(Math.max(past, 0), VISITS_PAGE_SIZE)));
 		return mav;
 	}
 
 	@GetMapping("/vets")
-	public String showVetList(@RequestParam(defaultValue = "1") int page, Model model) {
+	public String showVetList(@RequestParam(defaultValue = "1") int page, @RequestParam(required = false) String after,
+			@RequestParam(required = false) String before, Model model) {
+		if (this.keysetPagination || after != null || before != null) {
+			KeysetSlice<Vet> slice = findSlice(after, before);
+			model.addAttribute("keyset", slice);
+			model.addAttribute("listVets", slice.getContent());
+			return "vets/vetList";
+		}
 		// Here we are returning an object of type 'Vets' rather than a collection of Vet
 		// objects so it is simpler for Object-Xml mapping
 		Page<Vet> paginated = findPaginated(page);
@@ -132,8 +160,22 @@ class VetController {
 	}
 
 	private Page<Vet> findPaginated(int page) {
-		int pageSize = 5;
-		Pageable pageable = PageRequest.of(page - 1, pageSize);
-		return vets.findAll(pageable);
+		Pageable pageable = PageRequest.of(page - 1, PAGE_SIZE);
+		// page through the ids alone, then load those vets with their specialties
+		Page<Integer> ids = this.vets.findAllIds(pageable);
+		return new PageImpl<>(this.vets.findWithSpecialtiesInOrder(ids.getContent()), pageable, ids.getTotalElements());
+	}
+
+	private KeysetSlice<Vet> findSlice(String after, String before) {
+		// read one vet more than shown to find out whether there is a next window
+		Pageable limit = PageRequest.of(0, PAGE_SIZE + 1);
+		if (before != null) {
+			Keyset position = Keyset.decode(before);
+			List<Integer> ids = this.vets.findIdsBefore(position.getLastName(), position.getId(), limit);
+			return KeysetSlice.of(this.vets.findWithSpecialtiesInOrder(ids), PAGE_SIZE, true, true);
+		}
+		Keyset position = Keyset.decode(after);
+		List<Integer> ids = this.vets.findIdsAfter(position.getLastName(), position.getId(), limit);
+		return KeysetSlice.of(this.vets.findWithSpecialtiesInOrder(ids), PAGE_SIZE, false, after != null);
 	}
 }
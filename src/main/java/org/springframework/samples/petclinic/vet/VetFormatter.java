@@ -16,10 +16,10 @@
 package org.springframework.samples.petclinic.vet;
 
 import java.text.ParseException;
-import java.util.Collection;
 import java.util.Locale;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.Formatter;
+import org.springframework.samples.petclinic.system.ReferenceData;
 import org.springframework.stereotype.Component;
 
 /**
@@ -28,11 +28,11 @@ import org.springframework.stereotype.Component;
 @Component
 public class VetFormatter implements Formatter<Vet> {
 
-	private final VetRepository vets;
+	private final ReferenceData referenceData;
 
 	@Autowired
-	public VetFormatter(VetRepository vets) {
-		this.vets = vets;
+	public VetFormatter(ReferenceData referenceData) {
+		this.referenceData = referenceData;
 	}
 
 	@Override
@@ -43,11 +43,9 @@ public class VetFormatter implements Formatter<Vet> {
 	@Override
 	public Vet parse(String text, Locale locale) throws ParseException {
 		int id = Integer.parseInt(text);
-		Collection<Vet> findVets = this.vets.findAll();
-		for (Vet vet : findVets) {
-			if (vet.getId().equals(id)) {
-				return vet;
-			}
+		Vet vet = this.referenceData.findVet(id);
+		if (vet != null) {
+			return vet;
 		}
 		throw new ParseException("Vet not found: " + text, 0);
 	}
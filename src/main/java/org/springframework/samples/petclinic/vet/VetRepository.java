@@ -15,16 +15,20 @@
  */
 package org.springframework.samples.petclinic.vet;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import org.springframework.cache.annotation.CacheEvict;
+import javax.persistence.QueryHint;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.Repository;
 import org.springframework.data.repository.query.Param;
+import org.springframework.samples.petclinic.model.BaseEntity;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -45,41 +49,104 @@ public interface VetRepository extends Repository<Vet, Integer> {
 	 * @return a Collection of {@link Specialty}s.
 	 */
 	@Query("SELECT specs FROM Specialty specs ORDER BY specs.name")
+	@QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.CACHEABLE, value = "true"))
 	@Transactional(readOnly = true)
 	List<Specialty> findSpecialties();
 
 	/**
-	 * Retrieve all <code>Vet</code>s from the data store.
+	 * Retrieve all <code>Vet</code>s from the data store, with their specialties.
 	 * @return a <code>Collection</code> of <code>Vet</code>s
+	 * @see Vet#SPECIALTIES_GRAPH
 	 */
+	@Query("SELECT DISTINCT vet FROM Vet vet")
+	@EntityGraph(Vet.SPECIALTIES_GRAPH)
 	@Transactional(readOnly = true)
 	@Cacheable("vets")
 	Collection<Vet> findAll() throws DataAccessException;
 
 	/**
-	 * Retrieve all <code>Vet</code>s from data store in Pages
-	 * @param pageable
-	 * @return
+	 * Retrieve the ids of all <code>Vet</code>s from data store in Pages, without loading
+	 * the vets. The page is limited by the database without joining specialties; load the
+	 * vets of a page with {@link #findWithSpecialtiesByIdIn(Collection)}.
+	 * @param pageable the page to retrieve
+	 * @return a page of vet ids
 	 * @throws DataAccessException
 	 */
+	@Query(value = "SELECT vet.id FROM Vet vet", countQuery = "SELECT COUNT(vet) FROM Vet vet")
 	@Transactional(readOnly = true)
-	@Cacheable("vets")
-	Page<Vet> findAll(Pageable pageable) throws DataAccessException;
+	@Cacheable("vetPages")
+	Page<Integer> findAllIds(Pageable pageable) throws DataAccessException;
+
+	/**
+	 * Retrieve the <code>Vet</code>s with the given ids together with their specialties,
+	 * using a single statement.
+	 * @param ids the ids to search for
+	 * @return the vets found, in no particular order
+	 * @see Vet#SPECIALTIES_GRAPH
+	 */
+	@Query("SELECT DISTINCT vet FROM Vet vet WHERE vet.id IN :ids")
+	@EntityGraph(Vet.SPECIALTIES_GRAPH)
+	@Transactional(readOnly = true)
+	List<Vet> findWithSpecialtiesByIdIn(@Param("ids") Collection<Integer> ids);
+
+	/**
+	 * Retrieve the <code>Vet</code>s with the given ids together with their specialties,
+	 * like {@link #findWithSpecialtiesByIdIn(Collection)}, in the order of the ids.
+	 * @param ids the ids to search for, typically a page of ids
+	 * @return the vets found, in the order of their ids
+	 */
+	default List<Vet> findWithSpecialtiesInOrder(List<Integer> ids) {
+		return ids.isEmpty() ? new ArrayList<>() : BaseEntity.orderByIds(findWithSpecialtiesByIdIn(ids), ids);
+	}
+
+	/**
+	 * Retrieve the ids of the <code>Vet</code>s that come after the given position in
+	 * last name and id order, seeking on the last name index rather than skipping rows.
+	 * @param afterLastName last name of the position to read after
+	 * @param afterId id of the position to read after
+	 * @param limit the maximum number of vets to return
+	 * @return the ids of the vets following the position, in ascending order
+	 * @see org.springframework.samples.petclinic.model.Keyset
+	 */
+	@Query("SELECT vet.id FROM Vet vet WHERE vet.lastName > :afterLastName "
+			+ "OR (vet.lastName = :afterLastName AND vet.id > :afterId) ORDER BY vet.lastName, vet.id")
+	@Transactional(readOnly = true)
+	List<Integer> findIdsAfter(@Param("afterLastName") String afterLastName, @Param("afterId") Integer afterId,
+			Pageable limit);
+
+	/**
+	 * Retrieve the ids of the <code>Vet</code>s that come before the given position in
+	 * last name and id order.
+	 * @param beforeLastName last name of the position to read before
+	 * @param beforeId id of the position to read before
+	 * @param limit the maximum number of vets to return
+	 * @return the ids of the vets preceding the position, nearest first
+	 * @see org.springframework.samples.petclinic.model.Keyset
+	 */
+	@Query("SELECT vet.id FROM Vet vet WHERE vet.lastName < :beforeLastName "
+			+ "OR (vet.lastName = :beforeLastName AND vet.id < :beforeId) ORDER BY vet.lastName DESC, vet.id DESC")
+	@Transactional(readOnly = true)
+	List<Integer> findIdsBefore(@Param("beforeLastName") String beforeLastName, @Param("beforeId") Integer beforeId,
+			Pageable limit);
 
 	/**
-	 * Retrieve an {@link Vet} from the data store by id.
+	 * Retrieve an {@link Vet} from the data store by id, with its specialties.
 	 * @param id the id to search for
 	 * @return the {@link Vet} if found
+	 * @see Vet#SPECIALTIES_GRAPH
 	 */
-	@Query("SELECT vet FROM Vet vet WHERE vet.id =:id")
+	@Query("SELECT DISTINCT vet FROM Vet vet WHERE vet.id =:id")
+	@EntityGraph(Vet.SPECIALTIES_GRAPH)
 	@Transactional(readOnly = true)
+	@Cacheable("vet")
 	Vet findById(@Param("id") Integer id);
 
 	/**
-	 * Save an {@link Vet} to the data store, either inserting or updating it.
+	 * Save an {@link Vet} to the data store, either inserting or updating it. Cached
+	 * entries showing the vet are evicted once the save commits.
 	 * @param vet the {@link Vet} to save
+	 * @see VetCacheEvictor
 	 */
-	@CacheEvict(value="vets", allEntries=true)
 	void save(Vet vet);
 
 }
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.vet;
+
+/**
+ * Published by {@link VetRepository#save(Vet)} for every saved {@link Vet}.
+ */
+public class VetSavedEvent {
+
+	private final Integer vetId;
+
+	private final boolean created;
+
+	VetSavedEvent(Integer vetId, boolean created) {
+		this.vetId = vetId;
+		this.created = created;
+	}
+
+	public Integer getVetId() {
+		return this.vetId;
+	}
+
+	/**
+	 * @return whether the vet was inserted rather than updated
+	 */
+	public boolean isCreated() {
+		return this.created;
+	}
+
+}
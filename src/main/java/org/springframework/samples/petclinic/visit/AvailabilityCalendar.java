@@ -0,0 +1,139 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.visit;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Free and booked slots of a vet for every working day of a month. A slot is booked when
+ * any visit overlaps it, whatever the length of the visit.
+ */
+public class AvailabilityCalendar {
+
+	private final int vetId;
+
+	private final YearMonth month;
+
+	private final List<Day> days;
+
+	AvailabilityCalendar(int vetId, MonthOccupancy occupancy, List<WorkingHour> slots) {
+		this.vetId = vetId;
+		this.month = occupancy.getMonth();
+		List<Day> days = new ArrayList<>();
+		for (int day = 1; day <= this.month.lengthOfMonth(); day++) {
+			LocalDate date = this.month.atDay(day);
+			if (WorkingHour.isWorkingDay(date)) {
+				days.add(new Day(date, occupancy.getSchedule(date), slots));
+			}
+		}
+		this.days = Collections.unmodifiableList(days);
+	}
+
+	public int getVetId() {
+		return this.vetId;
+	}
+
+	public YearMonth getMonth() {
+		return this.month;
+	}
+
+	public List<Day> getDays() {
+		return this.days;
+	}
+
+	/**
+	 * Slots of a single working day.
+	 */
+	public static class Day {
+
+		private final LocalDate date;
+
+		private final List<Slot> free = new ArrayList<>();
+
+		private final List<Slot> booked = new ArrayList<>();
+
+		Day(LocalDate date, DaySchedule schedule, List<WorkingHour> slots) {
+			this.date = date;
+			for (WorkingHour slot : slots) {
+				boolean isBooked = schedule.overlaps(slot.getStartMinute(), slot.getEndMinute());
+				(isBooked ? this.booked : this.free).add(new Slot(slot));
+			}
+		}
+
+		public LocalDate getDate() {
+			return this.date;
+		}
+
+		public DayOfWeek getDayOfWeek() {
+			return this.date.getDayOfWeek();
+		}
+
+		public List<Slot> getFree() {
+			return this.free;
+		}
+
+		public List<Slot> getBooked() {
+			return this.booked;
+		}
+
+	}
+
+	/**
+	 * A {@link WorkingHour}, by the id a visit is booked with, its display name, start
+	 * time and duration in minutes.
+	 */
+	public static class Slot {
+
+		private final int id;
+
+		private final String name;
+
+		private final LocalTime start;
+
+		private final int duration;
+
+		Slot(WorkingHour time) {
+			this.id = time.getId();
+			this.name = time.getName();
+			this.start = time.getStart();
+			this.duration = time.getDuration();
+		}
+
+		public int getId() {
+			return this.id;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public LocalTime getStart() {
+			return this.start;
+		}
+
+		public int getDuration() {
+			return this.duration;
+		}
+
+	}
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.visit;
+
+import java.util.Arrays;
+
+/**
+ * The booked intervals of one vet on one day, in minutes of the day, as an immutable
+ * array sorted by start. Next to each start it keeps the latest end of all intervals up
+ * to it, so whether a new interval overlaps any booking is found with a single binary
+ * search, even when bookings loaded from the database overlap each other.
+ */
+public final class DaySchedule {
+
+	static final DaySchedule EMPTY = new DaySchedule(new int[0], new int[0]);
+
+	private final int[] starts;
+
+	private final int[] ends;
+
+	private final int[] maxEnds;
+
+	private DaySchedule(int[] starts, int[] ends) {
+		this.starts = starts;
+		this.ends = ends;
+		this.maxEnds = new int[ends.length];
+		int maxEnd = Integer.MIN_VALUE;
+		for (int i = 0; i < ends.length; i++) {
+			maxEnd = Math.max(maxEnd, ends[i]);
+			this.maxEnds[i] = maxEnd;
+		}
+	}
+
+	public int size() {
+		return this.starts.length;
+	}
+
+	/**
+	 * Tell whether an interval overlaps any booking of the day. Intervals that only
+	 * touch, one ending when the other starts, do not overlap.
+	 * @param start the first minute of the interval
+	 * @param end the minute after the interval
+	 * @return whether the interval overlaps a booking
+	 */
+	public boolean overlaps(int start, int end) {
+		// the last booking starting before the interval ends, and every one before it
+		int last = lastStartingBefore(end);
+		return last >= 0 && this.maxEnds[last] > start;
+	}
+
+	DaySchedule with(int start, int end) {
+		int at = lastStartingBefore(start + 1) + 1;
+		return new DaySchedule(insert(this.starts, at, start), insert(this.ends, at, end));
+	}
+
+	DaySchedule without(int start, int end) {
+		for (int i = lastStartingBefore(start + 1); i >= 0 && this.starts[i] == start; i--) {
+			if (this.ends[i] == end) {
+				return new DaySchedule(remove(this.starts, i), remove(this.ends, i));
+			}
+		}
+		return this;
+	}
+
+	private int lastStartingBefore(int minute) {
+		int low = 0;
+		int high = this.starts.length - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (this.starts[mid] < minute) {
+				low = mid + 1;
+			}
+			else {
+				high = mid - 1;
+			}
+		}
+		return high;
+	}
+
+	private static int[] insert(int[] values, int at, int value) {
+		int[] copy = Arrays.copyOf(values, values.length + 1);
+		System.arraycopy(values, at, copy, at + 1, values.length - at);
+		copy[at] = value;
+		return copy;
+	}
+
+	private static int[] remove(int[] values, int at) {
+		int[] copy = new int[values.length - 1];
+		System.arraycopy(values, 0, copy, 0, at);
+		System.arraycopy(values, at + 1, copy, at, copy.length - at);
+		return copy;
+	}
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.visit;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Booked intervals of one vet over one month, one {@link DaySchedule} per day. Days are
+ * replaced atomically, so a booking is only added if it does not overlap any other
+ * booking of the day, including one added concurrently.
+ */
+public final class MonthOccupancy {
+
+	private final YearMonth month;
+
+	private final AtomicReferenceArray<DaySchedule> days;
+
+	MonthOccupancy(YearMonth month) {
+		this.month = month;
+		this.days = new AtomicReferenceArray<>(month.lengthOfMonth());
+		for (int day = 0; day < this.days.length(); day++) {
+			this.days.set(day, DaySchedule.EMPTY);
+		}
+	}
+
+	public YearMonth getMonth() {
+		return this.month;
+	}
+
+	/**
+	 * Return the bookings of the given day of this month.
+	 * @param date a day of this month
+	 * @return the booked intervals of the day
+	 */
+	public DaySchedule getSchedule(LocalDate date) {
+		return this.days.get(dayIndex(date));
+	}
+
+	public boolean isFree(LocalDate date, int start, int end) {
+		return !getSchedule(date).overlaps(start, end);
+	}
+
+	/**
+	 * Add a booking unless it overlaps another one.
+	 * @return whether the booking was added
+	 */
+	boolean tryBook(LocalDate date, int start, int end) {
+		int day = dayIndex(date);
+		while (true) {
+			DaySchedule schedule = this.days.get(day);
+			if (schedule.overlaps(start, end)) {
+				return false;
+			}
+			if (this.days.compareAndSet(day, schedule, schedule.with(start, end))) {
+				return true;
+			}
+		}
+	}
+
+	void book(LocalDate date, int start, int end) {
+		this.days.getAndUpdate(dayIndex(date), schedule -> schedule.with(start, end));
+	}
+
+	void release(LocalDate date, int start, int end) {
+		this.days.getAndUpdate(dayIndex(date), schedule -> schedule.without(start, end));
+	}
+
+	private int dayIndex(LocalDate date) {
+		if (!YearMonth.from(date).equals(this.month)) {
+			throw new IllegalArgumentException(date + " is not in " + this.month);
+		}
+		return date.getDayOfMonth() - 1;
+	}
+
+}
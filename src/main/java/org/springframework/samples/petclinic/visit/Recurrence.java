@@ -0,0 +1,98 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.visit;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import org.springframework.format.annotation.DateTimeFormat;
+
+/**
+ * Rule repeating a visit every one or two weeks, either a number of times or until a
+ * given day. A series never has more than {@link #MAX_OCCURRENCES} visits.
+ */
+public class Recurrence {
+
+	public static final int MAX_OCCURRENCES = 52;
+
+	@NotNull
+	private Frequency frequency = Frequency.WEEKLY;
+
+	@Min(1)
+	@Max(MAX_OCCURRENCES)
+	private Integer count;
+
+	@DateTimeFormat(pattern = "yyyy-MM-dd")
+	private LocalDate until;
+
+	public Frequency getFrequency() {
+		return this.frequency;
+	}
+
+	public void setFrequency(Frequency frequency) {
+		this.frequency = frequency;
+	}
+
+	public Integer getCount() {
+		return this.count;
+	}
+
+	public void setCount(Integer count) {
+		this.count = count;
+	}
+
+	public LocalDate getUntil() {
+		return this.until;
+	}
+
+	public void setUntil(LocalDate until) {
+		this.until = until;
+	}
+
+	/**
+	 * Return the days of the series.
+	 * @param first the day of the first visit
+	 * @return the days in order, starting with the first
+	 */
+	public List<LocalDate> expand(LocalDate first) {
+		int limit = this.count != null ? Math.min(this.count, MAX_OCCURRENCES) : MAX_OCCURRENCES;
+		List<LocalDate> dates = new ArrayList<>();
+		for (LocalDate date = first; dates.size() < limit
+				&& (this.until == null || !date.isAfter(this.until)); date = date.plusWeeks(this.frequency.weeks)) {
+			dates.add(date);
+		}
+		return dates;
+	}
+
+	/**
+	 * How often a visit repeats.
+	 */
+	public enum Frequency {
+
+		WEEKLY(1), BIWEEKLY(2);
+
+		private final int weeks;
+
+		Frequency(int weeks) {
+			this.weeks = weeks;
+		}
+
+	}
+
+}
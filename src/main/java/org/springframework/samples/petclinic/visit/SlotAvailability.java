@@ -0,0 +1,340 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.visit;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Predicate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Keeps track of when each vet is booked, so that forms only offer free slots and
+ * overlapping visits are refused before they reach the database.
+ * <p>
+ * Bookings are held per vet and month as a {@link MonthOccupancy}, a sorted interval
+ * array per day, loaded the first time a day of that month is looked at and updated by
+ * {@link #book(Visit)} and {@link #cancel(Integer)}. Checking an interval is a binary
+ * search over the bookings of the vet's day, and reserving it is atomic, so conflicting
+ * bookings within an instance are turned down before they reach the database. Visits
+ * written by other means, or by other instances of the application, are only seen once
+ * their month is loaded again.
+ * </p>
+ * <p>
+ * Only the current month and the {@code petclinic.visits.occupancy-months} following it
+ * are kept, and months are dropped once they are past. Other months are loaded from the
+ * visits table on every use, so the copy a booking reserves its interval in is its own.
+ * </p>
+ * <p>
+ * The database has the last word for every month: a booking locks the row of its vet and
+ * checks the visits committed for its day in the transaction that inserts it, see
+ * {@link #lockBookings(Integer, LocalDate, LocalDate)}. Bookings of the same vet thus
+ * wait for each other there, while bookings of different vets do not.
+ * </p>
+ * <p>
+ * When the {@link VetSlotTable} is enabled, bookings also go through its slot rows, which
+ * arbitrate between instances for the working hour a visit starts at.
+ * </p>
+ */
+@Service
+public class SlotAvailability {
+
+	private final VisitRepository visits;
+
+	private final VetSlotTable slotTable;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final ConcurrentMap<Integer, ConcurrentMap<YearMonth, MonthOccupancy>> occupancy = new ConcurrentHashMap<>();
+
+	private final int monthsAhead;
+
+	private volatile YearMonth currentMonth = YearMonth.now();
+
+	private volatile List<WorkingHour> slots;
+
+	public SlotAvailability(VisitRepository visits, Optional<VetSlotTable> slotTable,
+			PlatformTransactionManager transactionManager,
+			@Value("${petclinic.visits.occupancy-months:12}") int monthsAhead) {
+		this.visits = visits;
+		this.slotTable = slotTable.orElse(null);
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.monthsAhead = monthsAhead;
+	}
+
+	/**
+	 * @return all slots of a working day, ordered by start time
+	 */
+	public List<WorkingHour> getSlots() {
+		List<WorkingHour> slots = this.slots;
+		if (slots == null) {
+			List<WorkingHour> sorted = new ArrayList<>(this.visits.findWorkingHours());
+			sorted.sort(Comparator.comparingInt(WorkingHour::getStartMinute).thenComparing(WorkingHour::getId));
+			slots = Collections.unmodifiableList(sorted);
+			this.slots = slots;
+		}
+		return slots;
+	}
+
+	/**
+	 * Return the bookings of a vet over a month.
+	 * @param vetId the id of the vet
+	 * @param month the month to look at
+	 * @return the live occupancy of the month, or a copy loaded for this call if the
+	 * month is not kept
+	 */
+	public MonthOccupancy getMonth(Integer vetId, YearMonth month) {
+		if (!isKept(month)) {
+			return load(vetId, month);
+		}
+		// loading under the map's lock makes concurrent bookings of the month wait for it
+		return getKeptMonths(vetId).computeIfAbsent(month, key -> load(vetId, key));
+	}
+
+	/**
+	 * Return the bookings of a vet over consecutive months, loading all months not looked
+	 * at yet with a single query.
+	 * @param vetId the id of the vet
+	 * @param first the first month
+	 * @param last the last month, inclusive
+	 * @return the occupancy of each month, by month, live for the months that are kept
+	 */
+	public Map<YearMonth, MonthOccupancy> getMonths(Integer vetId, YearMonth first, YearMonth last) {
+		ConcurrentMap<YearMonth, MonthOccupancy> months = getKeptMonths(vetId);
+		Map<YearMonth, MonthOccupancy> loaded = null;
+		Map<YearMonth, MonthOccupancy> result = new LinkedHashMap<>();
+		for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+			MonthOccupancy occupancy = months.get(month);
+			if (occupancy == null) {
+				if (loaded == null) {
+					loaded = load(vetId, first, last);
+				}
+				// keep a month loaded concurrently, it is as recent as ours
+				occupancy = isKept(month) ? months.computeIfAbsent(month, loaded::get) : loaded.get(month);
+			}
+			result.put(month, occupancy);
+		}
+		return result;
+	}
+
+	/**
+	 * Return the free and booked slots of a vet for every working day of a month.
+	 * @param vetId the id of the vet
+	 * @param month the month to look at
+	 * @return the calendar of the month
+	 */
+	public AvailabilityCalendar getCalendar(Integer vetId, YearMonth month) {
+		return new AvailabilityCalendar(vetId, getMonth(vetId, month), getSlots());
+	}
+
+	public boolean isFree(Integer vetId, LocalDate date, WorkingHour time) {
+		return isFree(vetId, date, time.getStartMinute(), time.getDuration());
+	}
+
+	/**
+	 * Tell whether a vet is free for a whole interval of a day.
+	 * @param vetId the id of the vet
+	 * @param date the day to look at
+	 * @param startMinute the start, in minutes of the day
+	 * @param duration the length in minutes
+	 * @return whether no booking overlaps the interval
+	 */
+	public boolean isFree(Integer vetId, LocalDate date, int startMinute, int duration) {
+		return getMonth(vetId, YearMonth.from(date)).isFree(date, startMinute, startMinute + duration);
+	}
+
+	/**
+	 * Return the slots of a vet that are still free on the given day.
+	 * @param vetId the id of the vet
+	 * @param date the day to look at
+	 * @return the free slots ordered by start time
+	 */
+	public List<WorkingHour> findFreeSlots(Integer vetId, LocalDate date) {
+		return findFreeSlots(vetId, date, null);
+	}
+
+	/**
+	 * Return the slots of a vet at which a visit of the given length can start on the
+	 * given day.
+	 * @param vetId the id of the vet
+	 * @param date the day to look at
+	 * @param duration the length of the visit in minutes, or {@code null} for the length
+	 * of each slot
+	 * @return the free slots ordered by start time
+	 */
+	public List<WorkingHour> findFreeSlots(Integer vetId, LocalDate date, Integer duration) {
+		DaySchedule schedule = getMonth(vetId, YearMonth.from(date)).getSchedule(date);
+		List<WorkingHour> hours = getSlots();
+		List<WorkingHour> free = new ArrayList<>(hours.size());
+		for (WorkingHour time : hours) {
+			int end = time.getStartMinute() + (duration != null ? duration : time.getDuration());
+			if (!schedule.overlaps(time.getStartMinute(), end)) {
+				free.add(time);
+			}
+		}
+		return free;
+	}
+
+	/**
+	 * Save a visit unless it overlaps another visit of its vet.
+	 * @param visit the visit to save
+	 * @throws DuplicateKeyException if the vet is already booked at that time
+	 */
+	public void book(Visit visit) throws DataIntegrityViolationException {
+		if (!visit.isScheduled()) {
+			save(visit);
+			return;
+		}
+		MonthOccupancy month = getMonth(visit.getVet().getId(), YearMonth.from(visit.getDate()));
+		// reserve the interval first, so that concurrent overlapping bookings fail here
+		if (!month.tryBook(visit.getDate(), visit.getStartMinute(), visit.getEndMinute())) {
+			throw new DuplicateKeyException("Vet " + visit.getVet().getId() + " is already booked on " + visit.getDate()
+					+ " between minutes " + visit.getStartMinute() + " and " + visit.getEndMinute());
+		}
+		try {
+			save(visit);
+		}
+		catch (RuntimeException ex) {
+			month.release(visit.getDate(), visit.getStartMinute(), visit.getEndMinute());
+			throw ex;
+		}
+	}
+
+	/**
+	 * Book a visit into the first free slot of its vet on its day. Each candidate goes
+	 * through {@link #book(Visit)}, so with the {@link VetSlotTable} a slot being claimed
+	 * by a parallel booking is skipped rather than waited for.
+	 * @param visit the visit to save, with its vet and date set
+	 * @param candidate which of the free slots the visit may take
+	 * @return whether a free slot was found, in which case the visit's time is set
+	 */
+	public boolean bookFirstAvailable(Visit visit, Predicate<WorkingHour> candidate) {
+		for (WorkingHour time : findFreeSlots(visit.getVet().getId(), visit.getDate(), visit.getDuration())) {
+			if (!candidate.test(time)) {
+				continue;
+			}
+			visit.setTime(time);
+			try {
+				book(visit);
+				return true;
+			}
+			catch (DataIntegrityViolationException ex) {
+				// taken in the meantime, try the next one with a fresh id
+				visit.setId(null);
+			}
+		}
+		visit.setTime(null);
+		return false;
+	}
+
+	/**
+	 * Delete a visit and free its time.
+	 * @param visitId the id of the visit to delete
+	 */
+	public void cancel(Integer visitId) {
+		Visit visit = this.visits.findById(visitId);
+		// the database frees a slot row of the visit, even with the slot table turned off
+		this.visits.deleteById(visitId);
+		if (visit != null && visit.isScheduled()) {
+			getMonth(visit.getVet().getId(), YearMonth.from(visit.getDate())).release(visit.getDate(),
+					visit.getStartMinute(), visit.getEndMinute());
+		}
+	}
+
+	/**
+	 * Lock the bookings of a vet in the database until the current transaction ends, and
+	 * load those of a range of days as committed by any instance. Must be called within
+	 * the transaction that inserts the new visits.
+	 * @param vetId the id of the vet
+	 * @param from the first day of the range
+	 * @param to the last day of the range, inclusive
+	 * @return the committed occupancy of each month of the range, by month
+	 */
+	Map<YearMonth, MonthOccupancy> lockBookings(Integer vetId, LocalDate from, LocalDate to) {
+		this.visits.lockVet(vetId);
+		return load(vetId, from, to);
+	}
+
+	private void save(Visit visit) {
+		this.transactionTemplate.executeWithoutResult(status -> {
+			if (visit.isScheduled()) {
+				LocalDate date = visit.getDate();
+				Map<YearMonth, MonthOccupancy> committed = lockBookings(visit.getVet().getId(), date, date);
+				if (!committed.get(YearMonth.from(date)).isFree(date, visit.getStartMinute(), visit.getEndMinute())) {
+					throw new DuplicateKeyException("Vet " + visit.getVet().getId() + " is already booked on " + date
+							+ " between minutes " + visit.getStartMinute() + " and " + visit.getEndMinute());
+				}
+			}
+			if (this.slotTable != null) {
+				this.slotTable.book(visit);
+			}
+			else {
+				this.visits.save(visit);
+			}
+		});
+	}
+
+	private boolean isKept(YearMonth month) {
+		YearMonth current = YearMonth.now();
+		return !month.isBefore(current) && !month.isAfter(current.plusMonths(this.monthsAhead));
+	}
+
+	private ConcurrentMap<YearMonth, MonthOccupancy> getKeptMonths(Integer vetId) {
+		YearMonth current = YearMonth.now();
+		if (current.isAfter(this.currentMonth)) {
+			// the first use in a new month drops the months that are past
+			this.currentMonth = current;
+			this.occupancy.values().forEach(months -> months.keySet().removeIf(month -> month.isBefore(current)));
+		}
+		return this.occupancy.computeIfAbsent(vetId, id -> new ConcurrentHashMap<>());
+	}
+
+	private MonthOccupancy load(Integer vetId, YearMonth month) {
+		return load(vetId, month, month).get(month);
+	}
+
+	private Map<YearMonth, MonthOccupancy> load(Integer vetId, YearMonth first, YearMonth last) {
+		return load(vetId, first.atDay(1), last.atEndOfMonth());
+	}
+
+	private Map<YearMonth, MonthOccupancy> load(Integer vetId, LocalDate from, LocalDate to) {
+		Map<YearMonth, MonthOccupancy> months = new HashMap<>();
+		YearMonth last = YearMonth.from(to);
+		for (YearMonth month = YearMonth.from(from); !month.isAfter(last); month = month.plusMonths(1)) {
+			months.put(month, new MonthOccupancy(month));
+		}
+		for (VisitRepository.BookedSlot booked : this.visits.findBookedSlots(vetId, from, to)) {
+			months.get(YearMonth.from(booked.getDate())).book(booked.getDate(), booked.getStartMinute(),
+					booked.getStartMinute() + booked.getDuration());
+		}
+		return months;
+	}
+
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.visit;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Short-lived holds on vet slots, taken when a visit form is opened for a slot so that
+ * concurrent bookings of a popular slot are turned away before anyone fills in the form,
+ * rather than by {@link SlotAvailability} afterwards.
+ * <p>
+ * A hold is identified by an opaque token that travels with the form and expires after
+ * {@code petclinic.visits.hold-ttl}. It covers the interval the visit would take, so a
+ * longer visit starting at another hour still runs into it. Holds are kept per vet and
+ * day in a {@link ConcurrentHashMap}, as a short immutable list replaced by atomic
+ * per-key updates, which only lock the bin of that day: holds on different days or vets
+ * never contend. A token holds at most one interval: holding another releases the
+ * previous one, so a form whose vet, day or time changes does not keep the slots it left.
+ * Holds are local to this instance of the application.
+ * </p>
+ */
+@Component
+public class SlotHolds {
+
+	private final ConcurrentMap<Day, List<Hold>> holds = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<String, Day> daysByToken = new ConcurrentHashMap<>();
+
+	private final long ttlMillis;
+
+	private final LongSupplier clock;
+
+	private final AtomicLong nextPurge = new AtomicLong();
+
+	@Autowired
+	public SlotHolds(@Value("${petclinic.visits.hold-ttl:5m}") Duration ttl) {
+		this(ttl, System::currentTimeMillis);
+	}
+
+	SlotHolds(Duration ttl, LongSupplier clock) {
+		this.ttlMillis = ttl.toMillis();
+		this.clock = clock;
+	}
+
+	/**
+	 * Take or renew a hold on an interval of a vet's day, releasing any other interval
+	 * held with the same token.
+	 * @param vetId the id of the vet
+	 * @param date the day of the visit
+	 * @param startMinute the start of the visit, in minutes of the day
+	 * @param endMinute the minute of the day after the visit
+	 * @param token the token of a hold the caller already owns, may be {@code null}
+	 * @return the token of the hold, or {@code null} if someone else holds part of the
+	 * interval
+	 */
+	public String hold(Integer vetId, LocalDate date, int startMinute, int endMinute, String token) {
+		long now = this.clock.getAsLong();
+		purgeExpired(now);
+		String owner = token != null ? token : UUID.randomUUID().toString();
+		Day day = new Day(vetId, date);
+		Day previous = this.daysByToken.remove(owner);
+		if (previous != null && !previous.equals(day)) {
+			release(previous, owner);
+		}
+		List<Hold> held = this.holds.compute(day, (key, current) -> {
+			List<Hold> others = new ArrayList<>();
+			boolean free = true;
+			for (Hold hold : current != null ? current : Collections.<Hold>emptyList()) {
+				if (!hold.isExpired(now) && !hold.token.equals(owner)) {
+					others.add(hold);
+					free &= !hold.overlaps(startMinute, endMinute);
+				}
+			}
+			if (free) {
+				others.add(new Hold(owner, startMinute, endMinute, now + this.ttlMillis));
+			}
+			return others.isEmpty() ? null : Collections.unmodifiableList(others);
+		});
+		if (held == null || held.stream().noneMatch(hold -> hold.token.equals(owner))) {
+			return null;
+		}
+		this.daysByToken.put(owner, day);
+		return owner;
+	}
+
+	/**
+	 * Return whether someone other than the owner of the given token holds part of an
+	 * interval of a vet's day.
+	 * @param vetId the id of the vet
+	 * @param date the day of the visit
+	 * @param startMinute the start of the visit, in minutes of the day
+	 * @param endMinute the minute of the day after the visit
+	 * @param token the caller's token, may be {@code null}
+	 * @return whether the interval overlaps a hold of someone else
+	 */
+	public boolean isHeldByOther(Integer vetId, LocalDate date, int startMinute, int endMinute, String token) {
+		List<Hold> held = this.holds.get(new Day(vetId, date));
+		if (held == null) {
+			return false;
+		}
+		long now = this.clock.getAsLong();
+		return held.stream().anyMatch(
+				hold -> !hold.isExpired(now) && !hold.token.equals(token) && hold.overlaps(startMinute, endMinute));
+	}
+
+	/**
+	 * Release the hold owned by the given token, whichever interval it is on.
+	 * @param token the token of the hold
+	 */
+	public void release(String token) {
+		Day day = this.daysByToken.remove(token);
+		if (day != null) {
+			release(day, token);
+		}
+	}
+
+	private void release(Day day, String token) {
+		this.holds.computeIfPresent(day, (key, current) -> retain(current, hold -> !hold.token.equals(token)));
+	}
+
+	private void purgeExpired(long now) {
+		long due = this.nextPurge.get();
+		// at most one caller per ttl sweeps the table
+		if (now >= due && this.nextPurge.compareAndSet(due, now + this.ttlMillis)) {
+			for (Day day : this.holds.keySet()) {
+				this.holds.computeIfPresent(day, (key, current) -> retain(current, hold -> !hold.isExpired(now)));
+			}
+			this.daysByToken.entrySet().removeIf(entry -> !this.holds.containsKey(entry.getValue()));
+		}
+	}
+
+	private static List<Hold> retain(List<Hold> holds, Predicate<Hold> filter) {
+		List<Hold> kept = holds.stream().filter(filter).collect(Collectors.toList());
+		return kept.isEmpty() ? null : Collections.unmodifiableList(kept);
+	}
+
+	private static final class Day {
+
+		private final Integer vetId;
+
+		private final LocalDate date;
+
+		Day(Integer vetId, LocalDate date) {
+			this.vetId = vetId;
+			this.date = date;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof Day)) {
+				return false;
+			}
+			Day day = (Day) other;
+			return this.vetId.equals(day.vetId) && this.date.equals(day.date);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.vetId, this.date);
+		}
+
+	}
+
+	private static final class Hold {
+
+		private final String token;
+
+		private final int start;
+
+		private final int end;
+
+		private final long expiresAt;
+
+		Hold(String token, int start, int end, long expiresAt) {
+			this.token = token;
+			this.start = start;
+			this.end = end;
+			this.expiresAt = expiresAt;
+		}
+
+		boolean isExpired(long now) {
+			return now >= this.expiresAt;
+		}
+
+		boolean overlaps(int start, int end) {
+			return this.start < end && start < this.end;
+		}
+
+	}
+
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.visit;
+
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Books visits by claiming pre-generated {@code vet_slot} rows, one per vet, working day
+ * and {@link WorkingHour}, so that bookings from several instances of the application are
+ * arbitrated by the database. A visit claims the row of the working hour it starts at;
+ * the rest of a longer visit is only checked by {@link SlotAvailability}. A booking locks
+ * its row with {@code SELECT ... FOR UPDATE SKIP LOCKED}, so concurrent bookings never
+ * wait on each other: a slot being claimed by someone else simply looks taken. Databases
+ * without {@code SKIP LOCKED}, like H2 or MySQL before 8.0, fall back to a plain
+ * {@code FOR UPDATE}, which waits for the other booking instead.
+ * <p>
+ * Slots are generated for {@code petclinic.visits.slot-table-days} days ahead on startup,
+ * and for any other day whenever it is booked, taken by any visit of the day that already
+ * overlaps them. A slot is freed by the database when its visit is deleted. Only created
+ * when {@code petclinic.visits.slot-table} is {@code true}.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = "petclinic.visits.slot-table", havingValue = "true")
+public class VetSlotTable implements SmartInitializingSingleton {
+
+	// a slot is taken by the first visit overlapping it, whatever working hour that visit
+	// was booked at
+	private static final String GENERATE = "INSERT INTO vet_slot (vet_id, slot_date, time_id, visit_id) "
+			+ "SELECT vet.id, ?, wh.id, (SELECT MIN(visit.id) FROM visits visit WHERE visit.vet_id = vet.id "
+			+ "AND visit.visit_date = ? AND visit.start_minute < wh.start_minute + wh.duration "
+			+ "AND visit.start_minute + visit.duration > wh.start_minute) FROM vets vet CROSS JOIN working_hour wh "
+			+ "WHERE NOT EXISTS (SELECT 1 FROM vet_slot slot WHERE slot.vet_id = vet.id AND slot.slot_date = ? "
+			+ "AND slot.time_id = wh.id)";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final VisitRepository visits;
+
+	private final EntityManager entityManager;
+
+	private final TransactionTemplate newTransaction;
+
+	private final String lockClause;
+
+	private final int days;
+
+	private final Set<LocalDate> generated = ConcurrentHashMap.newKeySet();
+
+	public VetSlotTable(DataSource dataSource, PlatformTransactionManager transactionManager, VisitRepository visits,
+			EntityManager entityManager, @Value("${petclinic.visits.slot-table-days:60}") int days) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.visits = visits;
+		this.entityManager = entityManager;
+		this.newTransaction = new TransactionTemplate(transactionManager);
+		this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		this.lockClause = supportsSkipLocked(dataSource) ? " FOR UPDATE SKIP LOCKED" : " FOR UPDATE";
+		this.days = days;
+	}
+
+	@Override
+	public void afterSingletonsInstantiated() {
+		LocalDate today = LocalDate.now();
+		for (int day = 0; day < this.days; day++) {
+			generate(today.plusDays(day));
+		}
+	}
+
+	/**
+	 * Save a visit, claiming the slot of its vet, day and time in the same transaction.
+	 * @param visit the visit to save
+	 * @throws DuplicateKeyException if the slot is taken or being claimed
+	 */
+	@Transactional
+	public void book(Visit visit) throws DataIntegrityViolationException {
+		if (visit.getVet() == null || visit.getDate() == null || visit.getTime() == null) {
+			this.visits.save(visit);
+			return;
+		}
+		generate(visit.getDate());
+		List<Integer> slot = this.jdbcTemplate.queryForList(
+				"SELECT id FROM vet_slot WHERE vet_id = ? AND slot_date = ? AND time_id = ? AND visit_id IS NULL"
+						+ this.lockClause,
+				Integer.class, visit.getVet().getId(), visit.getDate(), visit.getTime().getId());
+		if (slot.isEmpty()) {
+			throw new DuplicateKeyException(
+					"Slot taken: vet " + visit.getVet().getId() + " on " + visit.getDate() + " at " + visit.getTime());
+		}
+		this.visits.save(visit);
+		link(slot.get(0), visit.getId());
+	}
+
+	private void link(Integer slotId, Integer visitId) {
+		// ids are generated before the insert, which has to reach the database before
+		// the slot can reference the visit
+		this.entityManager.flush();
+		int updated = this.jdbcTemplate.update("UPDATE vet_slot SET visit_id = ? WHERE id = ? AND visit_id IS NULL",
+				visitId, slotId);
+		if (updated != 1) {
+			// only reachable without SKIP LOCKED, once the booking we waited for
+			// committed
+			throw new DuplicateKeyException("Slot " + slotId + " was claimed concurrently");
+		}
+	}
+
+	private void generate(LocalDate date) {
+		if (!WorkingHour.isWorkingDay(date) || this.generated.contains(date)) {
+			return;
+		}
+		try {
+			this.newTransaction.executeWithoutResult(status -> this.jdbcTemplate.update(GENERATE, date, date, date));
+		}
+		catch (DataIntegrityViolationException ex) {
+			// generated concurrently by another booking or instance
+		}
+		// only remember the days pre-generated ahead, so that the set stays bounded
+		LocalDate today = LocalDate.now();
+		this.generated.removeIf(day -> day.isBefore(today));
+		if (!date.isBefore(today) && date.isBefore(today.plusDays(this.days))) {
+			this.generated.add(date);
+		}
+	}
+
+	private static boolean supportsSkipLocked(DataSource dataSource) {
+		try {
+			return JdbcUtils.extractDatabaseMetaData(dataSource, VetSlotTable::supportsSkipLocked);
+		}
+		catch (MetaDataAccessException ex) {
+			return false;
+		}
+	}
+
+	// SKIP LOCKED came with MySQL 8.0 and PostgreSQL 9.5
+	static boolean supportsSkipLocked(DatabaseMetaData metaData) throws SQLException {
+		int major = metaData.getDatabaseMajorVersion();
+		switch (metaData.getDatabaseProductName()) {
+		case "MySQL":
+			return major >= 8;
+		case "PostgreSQL":
+			return major > 9 || (major == 9 && metaData.getDatabaseMinorVersion() >= 5);
+		default:
+			return false;
+		}
+	}
+
+}
@@ -20,7 +20,14 @@ import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.NamedSubgraph;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Table;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotEmpty;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.samples.petclinic.model.BaseEntity;
@@ -35,8 +42,22 @@ import org.springframework.samples.petclinic.vet.Vet;
  */
 @Entity
 @Table(name = "visits")
+@NamedEntityGraph(name = Visit.DETAILS_GRAPH,
+		attributeNodes = { @NamedAttributeNode("time"), @NamedAttributeNode(value = "pet", subgraph = "pet"),
+				@NamedAttributeNode(value = "vet", subgraph = "vet") },
+		subgraphs = {
+				@NamedSubgraph(name = "pet",
+						attributeNodes = { @NamedAttributeNode("type"), @NamedAttributeNode("owner") }),
+				@NamedSubgraph(name = "vet", attributeNodes = @NamedAttributeNode("specialties")) })
 public class Visit extends BaseEntity {
 
+	/**
+	 * Fetch plan that loads a visit together with what the visit tables show: the working
+	 * hour, the pet with its type and owner, and the vet with its specialties. The pets
+	 * of the owner are left out.
+	 */
+	public static final String DETAILS_GRAPH = "Visit.details";
+
 	@Column(name = "visit_date")
 	@DateTimeFormat(pattern = "yyyy-MM-dd")
 	private LocalDate date;
@@ -45,6 +66,16 @@ public class Visit extends BaseEntity {
 	@JoinColumn(name = "time_id")
 	private WorkingHour time;
 
+	@Column(name = "start_minute")
+	@Min(0)
+	@Max(WorkingHour.MINUTES_PER_DAY - 1)
+	private Integer startMinute;
+
+	@Column(name = "duration")
+	@Min(1)
+	@Max(WorkingHour.MINUTES_PER_DAY)
+	private Integer duration;
+
 	@NotEmpty
 	@Column(name = "description")
 	private String description;
@@ -104,4 +135,56 @@ public class Visit extends BaseEntity {
 	public void setTime(WorkingHour time) {
 		this.time = time;
 	}
+
+	/**
+	 * @return the start in minutes of the day, by default that of the working hour
+	 */
+	public Integer getStartMinute() {
+		if (this.startMinute == null && this.time != null) {
+			return this.time.getStartMinute();
+		}
+		return this.startMinute;
+	}
+
+	public void setStartMinute(Integer startMinute) {
+		this.startMinute = startMinute;
+	}
+
+	/**
+	 * @return the length in minutes, by default that of the working hour
+	 */
+	public Integer getDuration() {
+		if (this.duration == null && this.time != null) {
+			return this.time.getDuration();
+		}
+		return this.duration;
+	}
+
+	public void setDuration(Integer duration) {
+		this.duration = duration;
+	}
+
+	/**
+	 * @return whether the visit has a vet, a day and an interval of that day
+	 */
+	public boolean isScheduled() {
+		return this.vet != null && this.date != null && getStartMinute() != null && getDuration() != null;
+	}
+
+	/**
+	 * @return the minute of the day after the visit, or {@code null} without an interval
+	 */
+	public Integer getEndMinute() {
+		Integer start = getStartMinute();
+		Integer duration = getDuration();
+		return start != null && duration != null ? start + duration : null;
+	}
+
+	@PrePersist
+	@PreUpdate
+	void fillInterval() {
+		this.startMinute = getStartMinute();
+		this.duration = getDuration();
+	}
+
 }
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.visit;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Writes the history of visits, with their pet, owner, vet and working hour, as CSV or
+ * newline delimited JSON. Rows are read through a forward-only JDBC cursor fetching
+ * {@code petclinic.export.fetch-size} rows at a time, and written out as they are read,
+ * without entities or a persistence context: memory stays flat however many years are
+ * exported. The cursor is held in a read-only transaction, which some drivers need to
+ * fetch in chunks rather than read the whole result first. MySQL Connector/J only honours
+ * the fetch size with {@code useCursorFetch=true}, which the {@code mysql} profile sets
+ * on the connection pool.
+ */
+@Component
+public class VisitExport {
+
+	private static final String[] COLUMNS = { "visit_id", "visit_date", "start_minute", "duration", "working_hour",
+			"description", "pet_id", "pet_name", "pet_type", "owner_id", "owner_first_name", "owner_last_name",
+			"vet_id", "vet_first_name", "vet_last_name" };
+
+	// selects the COLUMNS, in order
+	private static final String SELECT = "SELECT visit.id AS visit_id, visit.visit_date, visit.start_minute, "
+			+ "visit.duration, wh.name AS working_hour, visit.description, pet.id AS pet_id, pet.name AS pet_name, "
+			+ "type.name AS pet_type, owner.id AS owner_id, owner.first_name AS owner_first_name, "
+			+ "owner.last_name AS owner_last_name, vet.id AS vet_id, vet.first_name AS vet_first_name, "
+			+ "vet.last_name AS vet_last_name FROM visits visit JOIN pets pet ON pet.id = visit.pet_id "
+			+ "JOIN types type ON type.id = pet.type_id JOIN owners owner ON owner.id = pet.owner_id "
+			+ "JOIN vets vet ON vet.id = visit.vet_id LEFT JOIN working_hour wh ON wh.id = visit.time_id";
+
+	/**
+	 * Output formats of an export.
+	 */
+	public enum Format {
+
+		CSV, NDJSON
+
+	}
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final TransactionTemplate transactionTemplate;
+
+	public VisitExport(DataSource dataSource, PlatformTransactionManager transactionManager,
+			@Value("${petclinic.export.fetch-size:500}") int fetchSize) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.jdbcTemplate.setFetchSize(fetchSize);
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setReadOnly(true);
+	}
+
+	/**
+	 * Write the visits of a date range, oldest first.
+	 * @param format how to write the visits
+	 * @param from the first day to export, or {@code null} for no lower bound
+	 * @param to the last day to export, inclusive, or {@code null} for no upper bound
+	 * @param vetId the vet whose visits to export, or {@code null} for all vets
+	 * @param out where to write the visits, left open
+	 */
+	public void export(Format format, LocalDate from, LocalDate to, Integer vetId, OutputStream out)
+			throws IOException {
+		StringBuilder sql = new StringBuilder(SELECT).append(" WHERE 1 = 1");
+		List<Object> args = new ArrayList<>();
+		if (from != null) {
+			sql.append(" AND visit.visit_date >= ?");
+			args.add(from);
+		}
+		if (to != null) {
+			sql.append(" AND visit.visit_date <= ?");
+			args.add(to);
+		}
+		if (vetId != null) {
+			sql.append(" AND visit.vet_id = ?");
+			args.add(vetId);
+		}
+		sql.append(" ORDER BY visit.visit_date, visit.start_minute, visit.id");
+
+		Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+		RowWriter rows = format == Format.CSV ? new CsvRowWriter(writer) : new JsonRowWriter(writer);
+		rows.writeHeader();
+		try {
+			this.transactionTemplate
+					.executeWithoutResult(status -> this.jdbcTemplate.query(sql.toString(), rows, args.toArray()));
+		}
+		catch (UncheckedIOException ex) {
+			throw ex.getCause();
+		}
+		rows.flush();
+	}
+
+	private abstract static class RowWriter implements RowCallbackHandler {
+
+		protected final Writer writer;
+
+		RowWriter(Writer writer) {
+			this.writer = writer;
+		}
+
+		@Override
+		public void processRow(ResultSet rs) throws SQLException {
+			Object[] values = new Object[COLUMNS.length];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = rs.getObject(i + 1);
+			}
+			values[1] = rs.getDate(2).toLocalDate();
+			try {
+				writeRow(values);
+			}
+			catch (IOException ex) {
+				// the client went away, stop reading
+				throw new UncheckedIOException(ex);
+			}
+		}
+
+		abstract void writeHeader() throws IOException;
+
+		abstract void writeRow(Object[] values) throws IOException;
+
+		void flush() throws IOException {
+			this.writer.flush();
+		}
+
+	}
+
+	private static class CsvRowWriter extends RowWriter {
+
+		CsvRowWriter(Writer writer) {
+			super(writer);
+		}
+
+		@Override
+		void writeHeader() throws IOException {
+			this.writer.write(String.join(",", COLUMNS));
+			this.writer.write('\n');
+		}
+
+		@Override
+		void writeRow(Object[] values) throws IOException {
+			for (int i = 0; i < values.length; i++) {
+				if (i > 0) {
+					this.writer.write(',');
+				}
+				if (values[i] instanceof String) {
+					this.writer.write('"');
+					this.writer.write(((String) values[i]).replace("\"", "\"\""));
+					this.writer.write('"');
+				}
+				else if (values[i] != null) {
+					this.writer.write(values[i].toString());
+				}
+			}
+			this.writer.write('\n');
+		}
+
+	}
+
+	private static class JsonRowWriter extends RowWriter {
+
+		private final JsonGenerator generator;
+
+		JsonRowWriter(Writer writer) throws IOException {
+			super(writer);
+			this.generator = new JsonFactory().setRootValueSeparator(null).createGenerator(writer)
+					.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+		}
+
+		@Override
+		void writeHeader() {
+		}
+
+		@Override
+		void writeRow(Object[] values) throws IOException {
+			this.generator.writeStartObject();
+			for (int i = 0; i < values.length; i++) {
+				if (values[i] instanceof Number) {
+					this.generator.writeNumberField(COLUMNS[i], ((Number) values[i]).longValue());
+				}
+				else if (values[i] != null) {
+					this.generator.writeStringField(COLUMNS[i], values[i].toString());
+				}
+				else {
+					this.generator.writeNullField(COLUMNS[i]);
+				}
+			}
+			this.generator.writeEndObject();
+			this.generator.writeRaw('\n');
+		}
+
+		@Override
+		void flush() throws IOException {
+			this.generator.flush();
+			super.flush();
+		}
+
+	}
+
+}
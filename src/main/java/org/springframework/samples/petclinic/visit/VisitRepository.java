@@ -15,11 +15,22 @@
  */
 package org.springframework.samples.petclinic.visit;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
 import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.samples.petclinic.model.BaseEntity;
+import org.springframework.samples.petclinic.vet.Vet;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -35,6 +46,12 @@ import org.springframework.transaction.annotation.Transactional;
  */
 public interface VisitRepository extends Repository<Visit, Integer> {
 
+	String HISTORY_SELECT = "SELECT visit.id AS id, visit.date AS date, visit.startMinute AS startMinute, "
+			+ "visit.duration AS duration, wh.name AS time, pet.name AS petName, owner.id AS ownerId, "
+			+ "owner.firstName AS ownerFirstName, owner.lastName AS ownerLastName, "
+			+ "visit.description AS description FROM Visit visit JOIN visit.pet pet JOIN pet.owner owner "
+			+ "LEFT JOIN visit.time wh WHERE visit.vet.id = :vetId ";
+
 	/**
 	 * Save a <code>Visit</code> to the data store, either inserting or updating it.
 	 * @param visit the <code>Visit</code> to save
@@ -42,17 +59,172 @@ public interface VisitRepository extends Repository<Visit, Integer> {
 	 */
 	void save(Visit visit) throws DataAccessException;
 
-	List<Visit> findByPetId(Integer petId);
+	/**
+	 * Retrieve a {@link Visit} by id.
+	 * @param id the id to search for
+	 * @return the visit, or {@code null} if there is none
+	 */
+	@Transactional(readOnly = true)
+	Visit findById(Integer id);
+
+	/**
+	 * Retrieve the day, start and duration of every visit of a vet within a date range,
+	 * without loading the visits.
+	 * @param vetId the id of the vet
+	 * @param from the first day of the range
+	 * @param to the last day of the range, inclusive
+	 * @return the booked slots of the vet
+	 */
+	@Query("SELECT visit.date AS date, visit.startMinute AS startMinute, visit.duration AS duration "
+			+ "FROM Visit visit WHERE visit.vet.id = :vetId AND visit.date BETWEEN :from AND :to")
+	@Transactional(readOnly = true)
+	List<BookedSlot> findBookedSlots(@Param("vetId") Integer vetId, @Param("from") LocalDate from,
+			@Param("to") LocalDate to);
+
+	/**
+	 * Lock the row of a vet until the end of the current transaction, so that other
+	 * transactions booking the same vet wait for it.
+	 * @param vetId the id of the vet
+	 * @return the vet
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("SELECT vet FROM Vet vet WHERE vet.id = :vetId")
+	Vet lockVet(@Param("vetId") Integer vetId);
 
-	List<Visit> findByVetId(Integer vetId);
+	/**
+	 * Retrieve the {@link Visit}s of a pet, fetching the pet, vet and working hour with
+	 * the same statement.
+	 * @param petId the id of the pet
+	 * @return the visits of the pet
+	 */
+	@Query("SELECT DISTINCT visit FROM Visit visit WHERE visit.pet.id = :petId")
+	@EntityGraph(Visit.DETAILS_GRAPH)
+	@Transactional(readOnly = true)
+	List<Visit> findByPetId(@Param("petId") Integer petId);
+
+	/**
+	 * Retrieve a window of the visits of a pet, latest first, without loading the visits
+	 * or their pet.
+	 * @param ownerId the id of the owner of the pet
+	 * @param petId the id of the pet
+	 * @param pageable the page to retrieve, without sort
+	 * @return the visits of the page, and whether there are more
+	 */
+	@Query("SELECT visit.id AS id, visit.date AS date, visit.startMinute AS startMinute, wh.name AS time, "
+			+ "CONCAT(vet.firstName, ' ', vet.lastName) AS vet, visit.description AS description "
+			+ "FROM Visit visit JOIN visit.vet vet LEFT JOIN visit.time wh "
+			+ "WHERE visit.pet.id = :petId AND visit.pet.owner.id = :ownerId "
+			+ "ORDER BY visit.date DESC, visit.startMinute DESC, visit.id DESC")
+	@Transactional(readOnly = true)
+	Slice<PetVisit> findSliceByPetId(@Param("ownerId") Integer ownerId, @Param("petId") Integer petId,
+			Pageable pageable);
+
+	/**
+	 * Retrieve the {@link Visit}s of several pets at once. The pet, vet and working hour
+	 * of every visit are fetched by the same statement, so the number of queries does not
+	 * grow with the number of pets.
+	 * @param petIds the ids of the pets whose visits should be loaded, must not be empty
+	 * @return the visits of all the given pets
+	 */
+	@Query("SELECT DISTINCT visit FROM Visit visit WHERE visit.pet.id IN :petIds")
+	@EntityGraph(Visit.DETAILS_GRAPH)
+	@Transactional(readOnly = true)
+	List<Visit> findByPetIdIn(@Param("petIds") Collection<Integer> petIds);
+
+	/**
+	 * Retrieve a window of the visits of a vet on or after a day, earliest first, ordered
+	 * by the database along the {@code (vet_id, visit_date)} index.
+	 * @param vetId the id of the vet
+	 * @param from the first day of the window
+	 * @param pageable the page to retrieve, without sort
+	 * @return the visits of the page, and whether there are more
+	 */
+	@Query(HISTORY_SELECT + "AND visit.date >= :from ORDER BY visit.date, visit.startMinute, visit.id")
+	@Transactional(readOnly = true)
+	Slice<VetVisit> findUpcomingByVetId(@Param("vetId") Integer vetId, @Param("from") LocalDate from,
+			Pageable pageable);
+
+	/**
+	 * Retrieve a window of the visits of a vet before a day, latest first.
+	 * @param vetId the id of the vet
+	 * @param before the day after the window
+	 * @param pageable the page to retrieve, without sort
+	 * @return the visits of the page, and whether there are more
+	 */
+	@Query(HISTORY_SELECT + "AND visit.date < :before ORDER BY visit.date DESC, visit.startMinute DESC, visit.id DESC")
+	@Transactional(readOnly = true)
+	Slice<VetVisit> findPastByVetId(@Param("vetId") Integer vetId, @Param("before") LocalDate before,
+			Pageable pageable);
 
 	/**
 	 * Retrieve all {@link WorkingHour}s from the data store.
 	 * @return a Collection of {@link WorkingHour}s.
 	 */
 	@Query("SELECT wh FROM WorkingHour wh")
+	@QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.CACHEABLE, value = "true"))
 	@Transactional(readOnly = true)
 	List<WorkingHour> findWorkingHours();
 
 	void deleteById(Integer visitId);
+
+	/**
+	 * Day of a visit, and its interval of that day in minutes.
+	 */
+	interface BookedSlot {
+
+		LocalDate getDate();
+
+		Integer getStartMinute();
+
+		Integer getDuration();
+
+	}
+
+	/**
+	 * A visit as listed with its pet on the page of the owner.
+	 */
+	interface PetVisit {
+
+		Integer getId();
+
+		LocalDate getDate();
+
+		Integer getStartMinute();
+
+		String getTime();
+
+		String getVet();
+
+		String getDescription();
+
+	}
+
+	/**
+	 * A visit as listed on the page of its vet, without loading the visit, its pet or its
+	 * owner.
+	 */
+	interface VetVisit {
+
+		Integer getId();
+
+		LocalDate getDate();
+
+		Integer getStartMinute();
+
+		Integer getDuration();
+
+		String getTime();
+
+		String getPetName();
+
+		Integer getOwnerId();
+
+		String getOwnerFirstName();
+
+		String getOwnerLastName();
+
+		String getDescription();
+
+	}
+
 }
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.visit;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of booking a recurring visit: the days booked and the days turned down, with
+ * the reason.
+ */
+public class VisitSeries {
+
+	private final List<LocalDate> booked = new ArrayList<>();
+
+	private final List<Rejection> rejected = new ArrayList<>();
+
+	public List<LocalDate> getBooked() {
+		return Collections.unmodifiableList(this.booked);
+	}
+
+	public List<Rejection> getRejected() {
+		return Collections.unmodifiableList(this.rejected);
+	}
+
+	void book(LocalDate date) {
+		this.booked.add(date);
+	}
+
+	void reject(LocalDate date, String reason) {
+		this.rejected.add(new Rejection(date, reason));
+	}
+
+	/**
+	 * A day of the series that could not be booked.
+	 */
+	public static class Rejection {
+
+		private final LocalDate date;
+
+		private final String reason;
+
+		Rejection(LocalDate date, String reason) {
+			this.date = date;
+			this.reason = reason;
+		}
+
+		public LocalDate getDate() {
+			return this.date;
+		}
+
+		public String getReason() {
+			return this.reason;
+		}
+
+	}
+
+}
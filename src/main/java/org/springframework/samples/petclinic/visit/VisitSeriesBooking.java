@@ -0,0 +1,159 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.visit;
+
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Books all visits of a {@link Recurrence} at once. Every day of the series is checked
+ * against the vet's bookings held by {@link SlotAvailability}, which loads the months the
+ * series spans with at most one query, and reserved there, unless a visit form holds its
+ * slot in {@link SlotHolds}. The days left are checked once more against the visits
+ * committed to the database, under the lock {@link SlotAvailability} takes on the vet for
+ * single bookings, and the visits of the days that are still free are inserted as a
+ * single JDBC batch in the same transaction. Days that are not free are reported back
+ * rather than failing the whole series.
+ * <p>
+ * Ids are taken from the same pooled generator Hibernate uses for {@link Visit}, so the
+ * rows inserted here never clash with visits saved through JPA.
+ */
+@Service
+public class VisitSeriesBooking {
+
+	private static final String INSERT = "INSERT INTO visits "
+			+ "(id, pet_id, vet_id, visit_date, time_id, description, start_minute, duration) "
+			+ "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+	private static final int[] INSERT_TYPES = { Types.INTEGER, Types.INTEGER, Types.INTEGER, Types.DATE, Types.INTEGER,
+			Types.VARCHAR, Types.INTEGER, Types.INTEGER };
+
+	private static final String BOOKED = "The vet is already booked at this time";
+
+	private final SlotAvailability availability;
+
+	private final SlotHolds holds;
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final EntityManager entityManager;
+
+	public VisitSeriesBooking(SlotAvailability availability, SlotHolds holds, DataSource dataSource,
+			PlatformTransactionManager transactionManager, EntityManager entityManager) {
+		this.availability = availability;
+		this.holds = holds;
+		this.entityManager = entityManager;
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+	}
+
+	/**
+	 * Book a visit on every day of a recurrence.
+	 * @param visit the first visit of the series, with its pet, vet, day and time set
+	 * @param recurrence how the visit repeats
+	 * @return the days booked and turned down
+	 */
+	public VisitSeries book(Visit visit, Recurrence recurrence) {
+		List<LocalDate> dates = recurrence.expand(visit.getDate());
+		VisitSeries series = new VisitSeries();
+		if (dates.isEmpty()) {
+			return series;
+		}
+		Integer vetId = visit.getVet().getId();
+		Map<YearMonth, MonthOccupancy> months = this.availability.getMonths(vetId, YearMonth.from(dates.get(0)),
+				YearMonth.from(dates.get(dates.size() - 1)));
+		int start = visit.getStartMinute();
+		int end = visit.getEndMinute();
+		Integer timeId = visit.getTime() != null ? visit.getTime().getId() : null;
+		// the reason each day is turned down, or null for the days reserved
+		Map<LocalDate, String> outcome = new LinkedHashMap<>();
+		List<LocalDate> reserved = new ArrayList<>(dates.size());
+		for (LocalDate date : dates) {
+			if (!WorkingHour.isWorkingDay(date)) {
+				outcome.put(date, "Appointment can not be scheduled on weekend");
+			}
+			else if (this.holds.isHeldByOther(vetId, date, start, end, null)) {
+				outcome.put(date, "This time is being booked for some other pet");
+			}
+			else if (!months.get(YearMonth.from(date)).tryBook(date, start, end)) {
+				outcome.put(date, BOOKED);
+			}
+			else {
+				outcome.put(date, null);
+				reserved.add(date);
+			}
+		}
+		try {
+			this.transactionTemplate.executeWithoutResult(status -> {
+				if (reserved.isEmpty()) {
+					return;
+				}
+				// other instances, and months not kept in memory, are only seen here
+				Map<YearMonth, MonthOccupancy> committed = this.availability.lockBookings(vetId, reserved.get(0),
+						reserved.get(reserved.size() - 1));
+				List<Object[]> rows = new ArrayList<>(reserved.size());
+				for (LocalDate date : reserved) {
+					if (committed.get(YearMonth.from(date)).isFree(date, start, end)) {
+						rows.add(new Object[] { null, visit.getPet().getId(), vetId, date, timeId,
+								visit.getDescription(), start, end - start });
+					}
+					else {
+						outcome.put(date, BOOKED);
+					}
+				}
+				SessionImplementor session = this.entityManager.unwrap(SessionImplementor.class);
+				IdentifierGenerator ids = session.getFactory().getMetamodel().entityPersister(Visit.class)
+						.getIdentifierGenerator();
+				for (Object[] row : rows) {
+					row[0] = ids.generate(session, null);
+				}
+				this.jdbcTemplate.batchUpdate(INSERT, rows, INSERT_TYPES);
+			});
+		}
+		catch (RuntimeException ex) {
+			reserved.forEach(date -> months.get(YearMonth.from(date)).release(date, start, end));
+			throw ex;
+		}
+		outcome.forEach((date, reason) -> {
+			if (reason == null) {
+				series.book(date);
+			}
+			else {
+				if (reserved.contains(date)) {
+					months.get(YearMonth.from(date)).release(date, start, end);
+				}
+				series.reject(date, reason);
+			}
+		});
+		return series;
+	}
+
+}
@@ -1,11 +1,100 @@
 package org.springframework.samples.petclinic.visit;
 
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Table;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
 import org.springframework.samples.petclinic.model.NamedEntity;
 
+/**
+ * A bookable slot of a working day. The name is only for display; the slot itself is its
+ * start, in minutes since midnight, and its duration in minutes, so that comparing slots
+ * with each other or with the clock needs no parsing.
+ */
 @Entity
 @Table(name = "working_hour")
+@Immutable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY)
 public class WorkingHour extends NamedEntity {
 
+	public static final int MINUTES_PER_DAY = 24 * 60;
+
+	@Column(name = "start_minute")
+	@Min(0)
+	@Max(MINUTES_PER_DAY - 1)
+	private int startMinute;
+
+	@Column(name = "duration")
+	@Min(1)
+	@Max(MINUTES_PER_DAY)
+	private int duration = 60;
+
+	public int getStartMinute() {
+		return this.startMinute;
+	}
+
+	public void setStartMinute(int startMinute) {
+		this.startMinute = startMinute;
+	}
+
+	public int getDuration() {
+		return this.duration;
+	}
+
+	public void setDuration(int duration) {
+		this.duration = duration;
+	}
+
+	public int getEndMinute() {
+		return this.startMinute + this.duration;
+	}
+
+	public LocalTime getStart() {
+		return LocalTime.ofSecondOfDay(this.startMinute * 60L);
+	}
+
+	/**
+	 * Return the minute of the day a time falls in, for comparing with
+	 * {@link #getStartMinute()}.
+	 * @param time the time of day
+	 * @return the minutes since midnight
+	 */
+	public static int minuteOfDay(LocalTime time) {
+		return time.getHour() * 60 + time.getMinute();
+	}
+
+	/**
+	 * Return the first minute of a day at which a visit can still be booked, which is an
+	 * hour from now.
+	 * @param date the day
+	 * @return the minutes since midnight, {@code 0} for a day after that hour and
+	 * {@link #MINUTES_PER_DAY} for a day before it, including today once the hour falls
+	 * on tomorrow
+	 */
+	public static int firstBookableMinute(LocalDate date) {
+		LocalDateTime earliest = LocalDateTime.now().plusHours(1);
+		if (date.isBefore(earliest.toLocalDate())) {
+			return MINUTES_PER_DAY;
+		}
+		return date.isAfter(earliest.toLocalDate()) ? 0 : minuteOfDay(earliest.toLocalTime());
+	}
+
+	/**
+	 * Tell whether visits can be booked on a day, which is any day but the weekend.
+	 * @param date the day
+	 * @return whether the day has working hours
+	 */
+	public static boolean isWorkingDay(LocalDate date) {
+		DayOfWeek day = date.getDayOfWeek();
+		return day != DayOfWeek.SATURDAY && day != DayOfWeek.SUNDAY;
+	}
+
 }
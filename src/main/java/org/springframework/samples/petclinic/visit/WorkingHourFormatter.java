@@ -1,10 +1,10 @@
 package org.springframework.samples.petclinic.visit;
 
 import java.text.ParseException;
-import java.util.Collection;
 import java.util.Locale;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.Formatter;
+import org.springframework.samples.petclinic.system.ReferenceData;
 import org.springframework.stereotype.Component;
 
 /**
@@ -13,11 +13,11 @@ import org.springframework.stereotype.Component;
 @Component
 public class WorkingHourFormatter implements Formatter<WorkingHour> {
 
-	private final VisitRepository visits;
+	private final ReferenceData referenceData;
 
 	@Autowired
-	public WorkingHourFormatter(VisitRepository visits) {
-		this.visits = visits;
+	public WorkingHourFormatter(ReferenceData referenceData) {
+		this.referenceData = referenceData;
 	}
 
 	@Override
@@ -33,11 +33,9 @@ public class WorkingHourFormatter implements Formatter<WorkingHour> {
 		} catch (NumberFormatException e) {
 			throw new ParseException("Wrong working hour id: " + text, 0);
 		}
-		Collection<WorkingHour> findWorkingHours = this.visits.findWorkingHours();
-		for (WorkingHour wh : findWorkingHours) {
-			if (wh.getId().equals(id)) {
-				return wh;
-			}
+		WorkingHour wh = this.referenceData.findWorkingHour(id);
+		if (wh != null) {
+			return wh;
 		}
 		throw new ParseException("working hour not found: " + text, 0);
 	}
@@ -1,6 +1,15 @@
+DROP SEQUENCE IF EXISTS vet_seq;
+DROP SEQUENCE IF EXISTS specialty_seq;
+DROP SEQUENCE IF EXISTS pet_type_seq;
+DROP SEQUENCE IF EXISTS owner_seq;
+DROP SEQUENCE IF EXISTS pet_seq;
+DROP SEQUENCE IF EXISTS working_hour_seq;
+DROP SEQUENCE IF EXISTS visit_seq;
 DROP TABLE vet_specialties IF EXISTS;
 DROP TABLE specialties IF EXISTS;
+DROP TABLE vet_slot IF EXISTS;
 DROP TABLE visits IF EXISTS;
+DROP TABLE working_hour IF EXISTS;
 DROP TABLE vets IF EXISTS;
 DROP TABLE pets IF EXISTS;
 DROP TABLE types IF EXISTS;
@@ -8,14 +17,14 @@ DROP TABLE owners IF EXISTS;
 
 
 CREATE TABLE vets (
-  id         INTEGER IDENTITY PRIMARY KEY,
+  id         INTEGER PRIMARY KEY,
   first_name VARCHAR(30),
   last_name  VARCHAR(30)
 );
 CREATE INDEX vets_last_name ON vets (last_name);
 
 CREATE TABLE specialties (
-  id   INTEGER IDENTITY PRIMARY KEY,
+  id   INTEGER PRIMARY KEY,
   name VARCHAR(80)
 );
 CREATE INDEX specialties_name ON specialties (name);
@@ -28,13 +37,13 @@ ALTER TABLE vet_specialties ADD CONSTRAINT fk_vet_specialties_vets FOREIGN KEY (
 ALTER TABLE vet_specialties ADD CONSTRAINT fk_vet_specialties_specialties FOREIGN KEY (specialty_id) REFERENCES specialties (id);
 
 CREATE TABLE types (
-  id   INTEGER IDENTITY PRIMARY KEY,
+  id   INTEGER PRIMARY KEY,
   name VARCHAR(80)
 );
 CREATE INDEX types_name ON types (name);
 
 CREATE TABLE owners (
-  id         INTEGER IDENTITY PRIMARY KEY,
+  id         INTEGER PRIMARY KEY,
   first_name VARCHAR(30),
   last_name  VARCHAR_IGNORECASE(30),
   address    VARCHAR(255),
@@ -44,7 +53,7 @@ CREATE TABLE owners (
 CREATE INDEX owners_last_name ON owners (last_name);
 
 CREATE TABLE pets (
-  id         INTEGER IDENTITY PRIMARY KEY,
+  id         INTEGER PRIMARY KEY,
   name       VARCHAR(30),
   birth_date DATE,
   type_id    INTEGER NOT NULL,
@@ -55,18 +64,26 @@ ALTER TABLE pets ADD CONSTRAINT fk_pets_types FOREIGN KEY (type_id) REFERENCES t
 CREATE INDEX pets_name ON pets (name);
 
 CREATE TABLE working_hour (
-  id   INTEGER IDENTITY PRIMARY KEY,
-  name VARCHAR(80)
+  id           INTEGER PRIMARY KEY,
+  name         VARCHAR(80),
+  start_minute INTEGER NOT NULL,
+  duration     INTEGER DEFAULT 60 NOT NULL,
+  CONSTRAINT working_hour_start CHECK (start_minute BETWEEN 0 AND 1439),
+  CONSTRAINT working_hour_duration CHECK (duration BETWEEN 1 AND 1440)
 );
 CREATE INDEX working_hour_name ON types (name);
 
 CREATE TABLE visits (
-  id          INTEGER IDENTITY PRIMARY KEY,
+  id          INTEGER PRIMARY KEY,
   pet_id      INTEGER NOT NULL,
   vet_id      INTEGER NOT NULL,
   visit_date  DATE NOT NULL,
-  time_id     INTEGER NOT NULL,
-  description VARCHAR(255)
+  time_id     INTEGER,
+  description VARCHAR(255),
+  start_minute INTEGER NOT NULL,
+  duration    INTEGER NOT NULL,
+  CONSTRAINT visits_start CHECK (start_minute BETWEEN 0 AND 1439),
+  CONSTRAINT visits_duration CHECK (duration > 0 AND start_minute + duration <= 1440)
 );
 ALTER TABLE visits ADD CONSTRAINT fk_visits_pets FOREIGN KEY (pet_id) REFERENCES pets (id);
 ALTER TABLE visits ADD CONSTRAINT fk_visits_vets FOREIGN KEY (vet_id) REFERENCES vets (id);
@@ -74,6 +91,27 @@ ALTER TABLE visits ADD CONSTRAINT fk_visits_working_hour FOREIGN KEY (time_id) R
 CREATE INDEX visits_pet_id ON visits (pet_id);
 CREATE INDEX visits_vet_id ON visits (vet_id);
 CREATE INDEX visits_time_id ON visits (time_id);
+CREATE INDEX visits_vet_date ON visits (vet_id, visit_date);
+CREATE INDEX visits_date ON visits (visit_date);
+
+CREATE TABLE vet_slot (
+  id        INTEGER IDENTITY PRIMARY KEY,
+  vet_id    INTEGER NOT NULL,
+  slot_date DATE NOT NULL,
+  time_id   INTEGER NOT NULL,
+  visit_id  INTEGER
+);
+ALTER TABLE vet_slot ADD CONSTRAINT fk_vet_slot_vets FOREIGN KEY (vet_id) REFERENCES vets (id);
+ALTER TABLE vet_slot ADD CONSTRAINT fk_vet_slot_working_hour FOREIGN KEY (time_id) REFERENCES working_hour (id);
+ALTER TABLE vet_slot ADD CONSTRAINT fk_vet_slot_visits FOREIGN KEY (visit_id) REFERENCES visits (id) ON DELETE SET NULL;
+ALTER TABLE vet_slot ADD CONSTRAINT vet_slot_unique UNIQUE (vet_id, slot_date, time_id);
+CREATE INDEX vet_slot_visit_id ON vet_slot (visit_id);
 
-ALTER TABLE visits
-  ADD CONSTRAINT visitConflict UNIQUE (vet_id, visit_date, time_id);
+-- ids are handed out by Hibernate in blocks of 50, see BaseEntity
+CREATE SEQUENCE vet_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE specialty_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE pet_type_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE owner_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE pet_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE working_hour_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE visit_seq START WITH 100 INCREMENT BY 50;
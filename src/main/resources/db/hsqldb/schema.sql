@@ -1,3 +1,10 @@
+DROP SEQUENCE vet_seq IF EXISTS;
+DROP SEQUENCE specialty_seq IF EXISTS;
+DROP SEQUENCE pet_type_seq IF EXISTS;
+DROP SEQUENCE owner_seq IF EXISTS;
+DROP SEQUENCE pet_seq IF EXISTS;
+DROP SEQUENCE working_hour_seq IF EXISTS;
+DROP SEQUENCE visit_seq IF EXISTS;
 DROP TABLE vet_specialties IF EXISTS;
 DROP TABLE vets IF EXISTS;
 DROP TABLE specialties IF EXISTS;
@@ -8,14 +15,14 @@ DROP TABLE owners IF EXISTS;
 
 
 CREATE TABLE vets (
-  id         INTEGER IDENTITY PRIMARY KEY,
+  id         INTEGER PRIMARY KEY,
   first_name VARCHAR(30),
   last_name  VARCHAR(30)
 );
 CREATE INDEX vets_last_name ON vets (last_name);
 
 CREATE TABLE specialties (
-  id   INTEGER IDENTITY PRIMARY KEY,
+  id   INTEGER PRIMARY KEY,
   name VARCHAR(80)
 );
 CREATE INDEX specialties_name ON specialties (name);
@@ -28,13 +35,13 @@ ALTER TABLE vet_specialties ADD CONSTRAINT fk_vet_specialties_vets FOREIGN KEY (
 ALTER TABLE vet_specialties ADD CONSTRAINT fk_vet_specialties_specialties FOREIGN KEY (specialty_id) REFERENCES specialties (id);
 
 CREATE TABLE types (
-  id   INTEGER IDENTITY PRIMARY KEY,
+  id   INTEGER PRIMARY KEY,
   name VARCHAR(80)
 );
 CREATE INDEX types_name ON types (name);
 
 CREATE TABLE owners (
-  id         INTEGER IDENTITY PRIMARY KEY,
+  id         INTEGER PRIMARY KEY,
   first_name VARCHAR(30),
   last_name  VARCHAR_IGNORECASE(30),
   address    VARCHAR(255),
@@ -44,7 +51,7 @@ CREATE TABLE owners (
 CREATE INDEX owners_last_name ON owners (last_name);
 
 CREATE TABLE pets (
-  id         INTEGER IDENTITY PRIMARY KEY,
+  id         INTEGER PRIMARY KEY,
   name       VARCHAR(30),
   birth_date DATE,
   type_id    INTEGER NOT NULL,
@@ -55,10 +62,20 @@ ALTER TABLE pets ADD CONSTRAINT fk_pets_types FOREIGN KEY (type_id) REFERENCES t
 CREATE INDEX pets_name ON pets (name);
 
 CREATE TABLE visits (
-  id          INTEGER IDENTITY PRIMARY KEY,
+  id          INTEGER PRIMARY KEY,
   pet_id      INTEGER NOT NULL,
   visit_date  DATE,
   description VARCHAR(255)
 );
 ALTER TABLE visits ADD CONSTRAINT fk_visits_pets FOREIGN KEY (pet_id) REFERENCES pets (id);
 CREATE INDEX visits_pet_id ON visits (pet_id);
+CREATE INDEX visits_date ON visits (visit_date);
+
+-- ids are handed out by Hibernate in blocks of 50, see BaseEntity
+CREATE SEQUENCE vet_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE specialty_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE pet_type_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE owner_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE pet_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE working_hour_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE visit_seq START WITH 100 INCREMENT BY 50;
@@ -1,12 +1,12 @@
 CREATE TABLE IF NOT EXISTS vets (
-  id INT(4) UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  id INT(4) UNSIGNED NOT NULL PRIMARY KEY,
   first_name VARCHAR(30),
   last_name VARCHAR(30),
   INDEX(last_name)
 ) engine=InnoDB;
 
 CREATE TABLE IF NOT EXISTS specialties (
-  id INT(4) UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  id INT(4) UNSIGNED NOT NULL PRIMARY KEY,
   name VARCHAR(80),
   INDEX(name)
 ) engine=InnoDB;
@@ -20,13 +20,13 @@ CREATE TABLE IF NOT EXISTS vet_specialties (
 ) engine=InnoDB;
 
 CREATE TABLE IF NOT EXISTS types (
-  id INT(4) UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  id INT(4) UNSIGNED NOT NULL PRIMARY KEY,
   name VARCHAR(80),
   INDEX(name)
 ) engine=InnoDB;
 
 CREATE TABLE IF NOT EXISTS owners (
-  id INT(4) UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  id INT(4) UNSIGNED NOT NULL PRIMARY KEY,
   first_name VARCHAR(30),
   last_name VARCHAR(30),
   address VARCHAR(255),
@@ -36,7 +36,7 @@ CREATE TABLE IF NOT EXISTS owners (
 ) engine=InnoDB;
 
 CREATE TABLE IF NOT EXISTS pets (
-  id INT(4) UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  id INT(4) UNSIGNED NOT NULL PRIMARY KEY,
   name VARCHAR(30),
   birth_date DATE,
   type_id INT(4) UNSIGNED NOT NULL,
@@ -47,9 +47,39 @@ CREATE TABLE IF NOT EXISTS pets (
 ) engine=InnoDB;
 
 CREATE TABLE IF NOT EXISTS visits (
-  id INT(4) UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  id INT(4) UNSIGNED NOT NULL PRIMARY KEY,
   pet_id INT(4) UNSIGNED NOT NULL,
   visit_date DATE,
   description VARCHAR(255),
+  INDEX(visit_date),
   FOREIGN KEY (pet_id) REFERENCES pets(id)
 ) engine=InnoDB;
+
+CREATE TABLE IF NOT EXISTS vet_slot (
+  id INT(4) UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  vet_id INT(4) UNSIGNED NOT NULL,
+  slot_date DATE NOT NULL,
+  time_id INT(4) UNSIGNED NOT NULL,
+  visit_id INT(4) UNSIGNED,
+  UNIQUE (vet_id, slot_date, time_id),
+  INDEX(visit_id),
+  FOREIGN KEY (vet_id) REFERENCES vets(id),
+  FOREIGN KEY (visit_id) REFERENCES visits(id)
+) engine=InnoDB;
+
+-- MySQL has no sequences: Hibernate keeps the next id of each entity in a table of its
+-- own instead, and hands ids out in blocks of 50, see BaseEntity
+CREATE TABLE IF NOT EXISTS vet_seq (next_val BIGINT) engine=InnoDB;
+INSERT INTO vet_seq SELECT 100 FROM DUAL WHERE NOT EXISTS (SELECT * FROM vet_seq);
+CREATE TABLE IF NOT EXISTS specialty_seq (next_val BIGINT) engine=InnoDB;
+INSERT INTO specialty_seq SELECT 100 FROM DUAL WHERE NOT EXISTS (SELECT * FROM specialty_seq);
+CREATE TABLE IF NOT EXISTS pet_type_seq (next_val BIGINT) engine=InnoDB;
+INSERT INTO pet_type_seq SELECT 100 FROM DUAL WHERE NOT EXISTS (SELECT * FROM pet_type_seq);
+CREATE TABLE IF NOT EXISTS owner_seq (next_val BIGINT) engine=InnoDB;
+INSERT INTO owner_seq SELECT 100 FROM DUAL WHERE NOT EXISTS (SELECT * FROM owner_seq);
+CREATE TABLE IF NOT EXISTS pet_seq (next_val BIGINT) engine=InnoDB;
+INSERT INTO pet_seq SELECT 100 FROM DUAL WHERE NOT EXISTS (SELECT * FROM pet_seq);
+CREATE TABLE IF NOT EXISTS working_hour_seq (next_val BIGINT) engine=InnoDB;
+INSERT INTO working_hour_seq SELECT 100 FROM DUAL WHERE NOT EXISTS (SELECT * FROM working_hour_seq);
+CREATE TABLE IF NOT EXISTS visit_seq (next_val BIGINT) engine=InnoDB;
+INSERT INTO visit_seq SELECT 100 FROM DUAL WHERE NOT EXISTS (SELECT * FROM visit_seq);
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.samples.petclinic.model.Keyset;
+import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.vet.Vet;
+import org.springframework.samples.petclinic.visit.Visit;
+import org.springframework.samples.petclinic.visit.VisitRepository;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Renders the pages of every controller against the database, without a transaction or an
+ * open session around the view, so that a page reaching an association its repository
+ * method does not fetch fails with a lazy initialization error here rather than in
+ * production. Pages backed by caches are rendered twice, the second time from the cached
+ * copies. Forms are posted both with errors and successfully, against a database of their
+ * own so that the saves do not leak into other tests. The cache manager is still shared
+ * with them, so cached entities are saved unchanged.
+ */
+@SpringBootTest(properties = { "spring.jpa.open-in-view=false", "spring.datasource.url=jdbc:h2:mem:fetchplan" })
+@AutoConfigureMockMvc
+class FetchPlanIntegrationTests {
+
+	private static final LocalDate MONDAY = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY)).plusWeeks(4);
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private VisitRepository visits;
+
+	@Test
+	void shouldRenderOwnerPages() throws Exception {
+		this.mockMvc.perform(get("/owners").param("lastName", "")).andExpect(status().isOk())
+				.andExpect(content().string(containsString("Samantha")));
+		this.mockMvc.perform(get("/owners").param("after", Keyset.of(owner(6, "Coleman")).encode()))
+				.andExpect(status().isOk()).andExpect(content().string(containsString("Mulligan")));
+		this.mockMvc.perform(get("/owners/{ownerId}", 6)).andExpect(status().isOk())
+				.andExpect(content().string(containsString("Samantha")));
+		this.mockMvc.perform(get("/owners/{ownerId}/pets/{petId}/visits", 6, 7)).andExpect(status().isOk());
+		this.mockMvc.perform(get("/owners/{ownerId}/edit", 6)).andExpect(status().isOk());
+		this.mockMvc.perform(post("/owners/{ownerId}/edit", 6).param("lastName", "Coleman")).andExpect(status().isOk())
+				.andExpect(model().attributeHasErrors("owner"));
+		this.mockMvc
+				.perform(post("/owners/{ownerId}/edit", 6).param("firstName", "Jean").param("lastName", "Coleman")
+						.param("address", "105 N. Lake St.").param("city", "Monona").param("telephone", "6085552655"))
+				.andExpect(status().is3xxRedirection());
+		this.mockMvc.perform(get("/owners/{ownerId}", 6)).andExpect(status().isOk())
+				.andExpect(content().string(containsString("6085552655")));
+		this.mockMvc.perform(get("/owners/typeahead").param("lastName", "Da")).andExpect(status().isOk())
+				.andExpect(content().string(containsString("Basil")));
+	}
+
+	@Test
+	void shouldRenderPetPages() throws Exception {
+		this.mockMvc.perform(get("/owners/{ownerId}/pets/new", 1)).andExpect(status().isOk());
+		this.mockMvc
+				.perform(post("/owners/{ownerId}/pets/new", 1).param("name", "leo").param("type", "1")
+						.param("birthDate", "2015-02-12"))
+				.andExpect(status().isOk()).andExpect(model().attributeHasFieldErrorCode("pet", "name", "duplicate"));
+		this.mockMvc.perform(get("/owners/{ownerId}/pets/{petId}/edit", 1, 1)).andExpect(status().isOk());
+		this.mockMvc.perform(post("/owners/{ownerId}/pets/{petId}/edit", 1, 1).param("name", "Leo"))
+				.andExpect(status().isOk()).andExpect(model().attributeHasErrors("pet"));
+		this.mockMvc.perform(post("/owners/{ownerId}/pets/new", 1).param("name", "Felix").param("type", "1")
+				.param("birthDate", "2015-02-12")).andExpect(status().is3xxRedirection());
+		this.mockMvc.perform(post("/owners/{ownerId}/pets/{petId}/edit", 1, 1).param("id", "1").param("name", "Leonard")
+				.param("type", "1").param("birthDate", "2010-09-07")).andExpect(status().is3xxRedirection());
+		this.mockMvc.perform(get("/owners/{ownerId}", 1)).andExpect(status().isOk())
+				.andExpect(content().string(containsString("Felix")))
+				.andExpect(content().string(containsString("Leonard")));
+	}
+
+	@Test
+	void shouldRenderVisitPages() throws Exception {
+		this.mockMvc.perform(get("/owners/{ownerId}/pets/{petId}/visits/new", 6, 7)).andExpect(status().isOk());
+		this.mockMvc.perform(post("/owners/{ownerId}/pets/{petId}/visits/new", 6, 7)).andExpect(status().isOk())
+				.andExpect(model().attributeHasErrors("visit"));
+		this.mockMvc
+				.perform(post("/owners/{ownerId}/pets/{petId}/visits/new", 6, 7).param("vet", "1")
+						.param("date", MONDAY.toString()).param("time", "1").param("description", "booked check-up"))
+				.andExpect(status().is3xxRedirection());
+		this.mockMvc.perform(get("/owners/{ownerId}", 6)).andExpect(status().isOk())
+				.andExpect(content().string(containsString("booked check-up")));
+		Visit booked = this.visits.findByPetId(7).stream()
+				.filter(visit -> "booked check-up".equals(visit.getDescription())).findFirst().get();
+		this.mockMvc.perform(get("/owners/{ownerId}/pets/{petId}/visits/{visitId}/cancel", 6, 7, booked.getId()))
+				.andExpect(status().is3xxRedirection());
+		this.mockMvc.perform(post("/owners/{ownerId}/pets/{petId}/visits/new", 6, 7).param("vet", "1")
+				.param("date", MONDAY.toString()).param("description", "first free check-up")
+				.param("firstAvailable", "")).andExpect(status().is3xxRedirection());
+		this.mockMvc.perform(get("/owners/{ownerId}/pets/{petId}/visits/series/new", 6, 7)).andExpect(status().isOk());
+		this.mockMvc
+				.perform(post("/owners/{ownerId}/pets/{petId}/visits/series/new", 6, 8).param("vet", "2")
+						.param("date", MONDAY.plusWeeks(1).toString()).param("time", "2")
+						.param("description", "physiotherapy").param("frequency", "WEEKLY").param("count", "2"))
+				.andExpect(status().isOk()).andExpect(model().attributeExists("series"));
+		this.mockMvc.perform(get("/visits/export")).andExpect(status().isOk());
+	}
+
+	@Test
+	void shouldRenderVetPages() throws Exception {
+		for (int i = 0; i < 2; i++) {
+			this.mockMvc.perform(get("/vets")).andExpect(status().isOk())
+					.andExpect(content().string(containsString("radiology")));
+			this.mockMvc.perform(get("/vets/{vetId}", 3)).andExpect(status().isOk())
+					.andExpect(content().string(containsString("dentistry")));
+		}
+		this.mockMvc.perform(get("/vets").param("after", Keyset.of(vet(1, "Carter")).encode()))
+				.andExpect(status().isOk()).andExpect(content().string(containsString("surgery")));
+		this.mockMvc.perform(get("/vets/{vetId}/edit", 3)).andExpect(status().isOk());
+		this.mockMvc.perform(post("/vets/{vetId}/edit", 3).param("lastName", "Douglas").param("specialties", "2"))
+				.andExpect(status().isOk()).andExpect(model().attributeHasErrors("vet"));
+		this.mockMvc
+				.perform(post("/vets/{vetId}/edit", 3).param("firstName", "Linda").param("lastName", "Douglas")
+						.param("specialties", "surgery").param("specialties", "dentistry"))
+				.andExpect(status().is3xxRedirection());
+		this.mockMvc.perform(get("/vets/{vetId}", 3)).andExpect(status().isOk())
+				.andExpect(content().string(containsString("dentistry")));
+		this.mockMvc.perform(get("/vets/new")).andExpect(status().isOk());
+		this.mockMvc.perform(get("/vets/{vetId}/availability", 3)).andExpect(status().isOk());
+		this.mockMvc.perform(get("/vets/free-slots").param("specialty", "surgery")).andExpect(status().isOk());
+	}
+
+	private static Owner owner(int id, String lastName) {
+		Owner owner = new Owner();
+		owner.setId(id);
+		owner.setLastName(lastName);
+		return owner;
+	}
+
+	private static Vet vet(int id, String lastName) {
+		Vet vet = new Vet();
+		vet.setId(id);
+		vet.setLastName(lastName);
+		return vet;
+	}
+
+}
@@ -16,9 +16,16 @@
 
 package org.springframework.samples.petclinic;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.samples.petclinic.vet.Vet;
 import org.springframework.samples.petclinic.vet.VetRepository;
 
 @SpringBootTest
@@ -27,10 +34,31 @@ class PetclinicIntegrationTests {
 	@Autowired
 	private VetRepository vets;
 
+	@Autowired
+	private CacheManager cacheManager;
+
 	@Test
 	void testFindAll() throws Exception {
 		vets.findAll();
 		vets.findAll(); // served from cache
 	}
 
+	@Test
+	void testSaveVetEvictsOnlyEntriesShowingIt() throws Exception {
+		PageRequest first = PageRequest.of(0, 3, Sort.by("id"));
+		PageRequest second = PageRequest.of(1, 3, Sort.by("id"));
+		vets.findAllIds(first);
+		vets.findAllIds(second);
+		vets.findById(2);
+		Vet vet = vets.findById(1);
+
+		vets.save(vet);
+
+		Cache pages = cacheManager.getCache("vetPages");
+		assertThat(pages.get(first)).isNull();
+		assertThat(pages.get(second)).isNotNull();
+		assertThat(cacheManager.getCache("vet").get(1)).isNull();
+		assertThat(cacheManager.getCache("vet").get(2)).isNotNull();
+	}
+
 }
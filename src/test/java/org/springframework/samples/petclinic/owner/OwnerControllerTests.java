@@ -16,23 +16,31 @@
 
 package org.springframework.samples.petclinic.owner;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.hasProperty;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
 
 import java.time.LocalDate;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.assertj.core.util.Lists;
 import org.hamcrest.BaseMatcher;
@@ -43,12 +51,17 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.samples.petclinic.model.Keyset;
 import org.springframework.samples.petclinic.visit.Visit;
 import org.springframework.samples.petclinic.visit.VisitRepository;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 /**
  * Test class for {@link OwnerController}
@@ -69,10 +82,17 @@ class OwnerControllerTests {
 	@MockBean
 	private VisitRepository visits;
 
+	@MockBean
+	private OwnerCountService counts;
+
+	@MockBean
+	private OwnerTypeahead typeahead;
+
 	private Owner george;
 
 	@BeforeEach
 	void setup() {
+		given(this.owners.findWithPetsInOrder(anyList())).willCallRealMethod();
 		george = new Owner();
 		george.setId(TEST_OWNER_ID);
 		george.setFirstName("George");
@@ -89,15 +109,21 @@ class OwnerControllerTests {
 		max.setBirthDate(LocalDate.now());
 		george.setPetsInternal(Collections.singleton(max));
 
-		given(this.owners.findByLastName(eq("Franklin"), any(Pageable.class)))
-				.willReturn(new PageImpl<Owner>(Lists.newArrayList(george)));
+		given(this.owners.findIdSliceByLastName(eq("Franklin"), any(Pageable.class)))
+				.willReturn(new SliceImpl<Integer>(Lists.newArrayList(TEST_OWNER_ID)));
+		given(this.owners.findWithPetsByIdIn(Collections.singletonList(TEST_OWNER_ID)))
+				.willReturn(Lists.newArrayList(george));
+		given(this.counts.countByLastName(anyString())).willReturn(new OwnerCount(2, true));
 
 		given(this.owners.findAll(any(Pageable.class))).willReturn(new PageImpl<Owner>(Lists.newArrayList(george)));
 
 		given(this.owners.findById(TEST_OWNER_ID)).willReturn(george);
+		given(this.owners.findWithoutPetsById(TEST_OWNER_ID)).willReturn(george);
 		Visit visit = new Visit();
 		visit.setDate(LocalDate.now());
-		given(this.visits.findByPetId(max.getId())).willReturn(Collections.singletonList(visit));
+		visit.setPet(max);
+		given(this.visits.findByPetIdIn(Collections.singletonList(max.getId())))
+				.willReturn(Collections.singletonList(visit));
 
 	}
 
@@ -132,23 +158,29 @@ class OwnerControllerTests {
 
 	@Test
 	void testProcessFindFormSuccess() throws Exception {
-		Page<Owner> tasks = new PageImpl<Owner>(Lists.newArrayList(george, new Owner()));
-		Mockito.when(this.owners.findByLastName(anyString(), any(Pageable.class))).thenReturn(tasks);
-		mockMvc.perform(get("/owners?page=1")).andExpect(status().isOk()).andExpect(view().name("owners/ownersList"));
+		Owner betty = new Owner();
+		betty.setId(2);
+		Slice<Integer> ids = new SliceImpl<Integer>(Lists.newArrayList(TEST_OWNER_ID, 2));
+		Mockito.when(this.owners.findIdSliceByLastName(anyString(), any(Pageable.class))).thenReturn(ids);
+		// owners come back from the IN query in no particular order
+		Mockito.when(this.owners.findWithPetsByIdIn(Lists.newArrayList(TEST_OWNER_ID, 2)))
+				.thenReturn(Lists.newArrayList(betty, george));
+		mockMvc.perform(get("/owners?page=1")).andExpect(status().isOk())
+				.andExpect(model().attribute("totalItems", hasProperty("count", is(2L))))
+				.andExpect(model().attribute("listOwners", contains(george, betty)))
+				.andExpect(view().name("owners/ownersList"));
 	}
 
 	@Test
 	void testProcessFindFormByLastName() throws Exception {
-		Page<Owner> tasks = new PageImpl<Owner>(Lists.newArrayList(george));
-		Mockito.when(this.owners.findByLastName(eq("Franklin"), any(Pageable.class))).thenReturn(tasks);
 		mockMvc.perform(get("/owners?page=1").param("lastName", "Franklin")).andExpect(status().is3xxRedirection())
 				.andExpect(view().name("redirect:/owners/" + TEST_OWNER_ID));
 	}
 
 	@Test
 	void testProcessFindFormNoOwnersFound() throws Exception {
-		Page<Owner> tasks = new PageImpl<Owner>(Lists.newArrayList());
-		Mockito.when(this.owners.findByLastName(eq("Unknown Surname"), any(Pageable.class))).thenReturn(tasks);
+		Slice<Integer> ids = new SliceImpl<Integer>(Lists.newArrayList());
+		Mockito.when(this.owners.findIdSliceByLastName(eq("Unknown Surname"), any(Pageable.class))).thenReturn(ids);
 		mockMvc.perform(get("/owners?page=1").param("lastName", "Unknown Surname")).andExpect(status().isOk())
 				.andExpect(model().attributeHasFieldErrors("owner", "lastName"))
 				.andExpect(model().attributeHasFieldErrorCode("owner", "lastName", "notFound"))
@@ -156,6 +188,58 @@ class OwnerControllerTests {
 
 	}
 
+	@Test
+	void testProcessFindFormEstimatedCount() throws Exception {
+		Slice<Integer> ids = new SliceImpl<Integer>(Lists.newArrayList(TEST_OWNER_ID), Pageable.ofSize(1), true);
+		Mockito.when(this.owners.findIdSliceByLastName(eq(""), any(Pageable.class))).thenReturn(ids);
+		given(this.counts.countByLastName("")).willReturn(new OwnerCount(1000, false));
+		mockMvc.perform(get("/owners?page=1")).andExpect(status().isOk())
+				.andExpect(model().attribute("totalItems", hasProperty("exact", is(false))))
+				.andExpect(model().attribute("hasNext", is(true))).andExpect(view().name("owners/ownersList"));
+	}
+
+	@Test
+	void testProcessFindFormShowsPagesAroundCurrentPage() throws Exception {
+		Slice<Integer> ids = new SliceImpl<Integer>(Lists.newArrayList(TEST_OWNER_ID), Pageable.ofSize(1), true);
+		Mockito.when(this.owners.findIdSliceByLastName(eq(""), any(Pageable.class))).thenReturn(ids);
+		given(this.counts.countByLastName("")).willReturn(new OwnerCount(1000, true));
+		mockMvc.perform(get("/owners?page=100")).andExpect(status().isOk())
+				.andExpect(model().attribute("totalPages", is(200)))
+				.andExpect(content().string(containsString("page=96\"")))
+				.andExpect(content().string(containsString("page=104\"")))
+				.andExpect(content().string(containsString("page=200\"")))
+				.andExpect(content().string(not(containsString("page=95\""))))
+				.andExpect(content().string(not(containsString("page=105\""))));
+	}
+
+	@Test
+	void testProcessFindFormAfterKeyset() throws Exception {
+		Owner betty = new Owner();
+		betty.setId(2);
+		betty.setLastName("Davis");
+		given(this.owners.findIdsByLastNameAfter(eq("Davis"), eq("Davis"), eq(1), any(Pageable.class)))
+				.willReturn(Lists.newArrayList(2));
+		given(this.owners.findWithPetsByIdIn(Lists.newArrayList(2))).willReturn(Lists.newArrayList(betty));
+		Owner harold = new Owner();
+		harold.setId(1);
+		harold.setLastName("Davis");
+		mockMvc.perform(get("/owners").param("lastName", "Davis").param("after", Keyset.of(harold).encode()))
+				.andExpect(status().isOk()).andExpect(model().attribute("listOwners", contains(betty)))
+				.andExpect(model().attribute("keyset", hasProperty("previousToken", is(Keyset.of(betty).encode()))))
+				.andExpect(model().attribute("keyset", hasProperty("nextToken", is((String) null))))
+				.andExpect(view().name("owners/ownersList"));
+	}
+
+	@Test
+	void testProcessFindFormBeforeKeyset() throws Exception {
+		given(this.owners.findIdsByLastNameBefore(anyString(), anyString(), anyInt(), any(Pageable.class)))
+				.willReturn(Lists.newArrayList(TEST_OWNER_ID));
+		mockMvc.perform(get("/owners").param("before", Keyset.of(george).encode())).andExpect(status().isOk())
+				.andExpect(model().attribute("listOwners", contains(george)))
+				.andExpect(model().attribute("keyset", hasProperty("nextToken", is(Keyset.of(george).encode()))))
+				.andExpect(view().name("owners/ownersList"));
+	}
+
 	@Test
 	void testInitUpdateOwnerForm() throws Exception {
 		mockMvc.perform(get("/owners/{ownerId}/edit", TEST_OWNER_ID)).andExpect(status().isOk())
@@ -176,6 +260,16 @@ class OwnerControllerTests {
 				.andExpect(view().name("redirect:/owners/{ownerId}"));
 	}
 
+	@Test
+	void testProcessUpdateOwnerFormEvictsOldAndNewSuggestions() throws Exception {
+		given(this.owners.findLastNameById(TEST_OWNER_ID)).willReturn("Franklin");
+		mockMvc.perform(post("/owners/{ownerId}/edit", TEST_OWNER_ID).param("firstName", "Joe")
+				.param("lastName", "Bloggs").param("address", "123 Caramel Street").param("city", "London")
+				.param("telephone", "01616291589")).andExpect(status().is3xxRedirection());
+		Mockito.verify(this.typeahead).ownerChanged("Bloggs");
+		Mockito.verify(this.typeahead).ownerChanged("Franklin");
+	}
+
 	@Test
 	void testProcessUpdateOwnerFormHasErrors() throws Exception {
 		mockMvc.perform(post("/owners/{ownerId}/edit", TEST_OWNER_ID).param("firstName", "Joe")
@@ -215,4 +309,29 @@ class OwnerControllerTests {
 				}))).andExpect(view().name("owners/ownerDetails"));
 	}
 
+	@Test
+	void testShowPetVisitsFragment() throws Exception {
+		Map<String, Object> visit = new HashMap<>();
+		visit.put("id", 5);
+		visit.put("date", LocalDate.of(2013, 1, 1));
+		visit.put("startMinute", 480);
+		visit.put("time", "8:00 am");
+		visit.put("vet", "James Carter");
+		visit.put("description", "rabies shot");
+		VisitRepository.PetVisit petVisit = new SpelAwareProxyProjectionFactory()
+				.createProjection(VisitRepository.PetVisit.class, visit);
+		given(this.visits.findSliceByPetId(TEST_OWNER_ID, 1, PageRequest.of(0, 10)))
+				.willReturn(new SliceImpl<>(Collections.singletonList(petVisit), PageRequest.of(0, 10), true));
+
+		MvcResult result = mockMvc.perform(get("/owners/{ownerId}/pets/{petId}/visits", TEST_OWNER_ID, 1))
+				.andExpect(status().isOk()).andExpect(view().name("owners/petVisits :: visits"))
+				.andExpect(content().string(containsString("rabies shot")))
+				.andExpect(content().string(containsString("/owners/1/pets/1/visits/5/cancel")))
+				.andExpect(content().string(containsString("/owners/1/pets/1/visits?page=1")))
+				.andExpect(content().string(not(containsString("<html")))).andReturn();
+		String etag = result.getResponse().getHeader("ETag");
+		mockMvc.perform(get("/owners/{ownerId}/pets/{petId}/visits", TEST_OWNER_ID, 1).header("If-None-Match", etag))
+				.andExpect(status().isNotModified()).andExpect(header().string("ETag", etag));
+	}
+
 }
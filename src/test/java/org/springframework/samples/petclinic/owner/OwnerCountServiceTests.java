@@ -0,0 +1,76 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+/**
+ * Test class for {@link OwnerCountService}
+ */
+class OwnerCountServiceTests {
+
+	private OwnerRepository owners;
+
+	private OwnerCountService counts;
+
+	@BeforeEach
+	void setup() {
+		this.owners = mock(OwnerRepository.class);
+		given(this.owners.countByLastNameUpTo("dav", 4)).willReturn(2L);
+		given(this.owners.countByLastNameUpTo("fr", 4)).willReturn(1L);
+		given(this.owners.countByLastNameUpTo("", 4)).willReturn(4L);
+		this.counts = new OwnerCountService(this.owners, Optional.empty(),
+				Optional.of(new ConcurrentMapCacheManager(OwnerCountService.CACHE)), 3);
+	}
+
+	@Test
+	void shouldCountUpToLimit() {
+		assertThat(this.counts.countByLastName("Dav").getCount()).isEqualTo(2);
+		assertThat(this.counts.countByLastName("Dav").isExact()).isTrue();
+		assertThat(this.counts.countByLastName("").toString()).isEqualTo("more than 3");
+	}
+
+	@Test
+	void shouldShareEntryAcrossCase() {
+		this.counts.countByLastName("Dav");
+		this.counts.countByLastName("DAV");
+		verify(this.owners, times(1)).countByLastNameUpTo("dav", 4);
+	}
+
+	@Test
+	void shouldEvictPrefixesOfChangedOwnerOnly() {
+		this.counts.countByLastName("Dav");
+		this.counts.countByLastName("Fr");
+		this.counts.countByLastName("");
+		this.counts.ownerChanged("Davis");
+		this.counts.countByLastName("Dav");
+		this.counts.countByLastName("Fr");
+		this.counts.countByLastName("");
+		verify(this.owners, times(2)).countByLastNameUpTo("dav", 4);
+		verify(this.owners, times(1)).countByLastNameUpTo("fr", 4);
+		verify(this.owners, times(2)).countByLastNameUpTo("", 4);
+	}
+
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.samples.petclinic.vet.Vet;
+import org.springframework.samples.petclinic.vet.VetRepository;
+import org.springframework.samples.petclinic.visit.Visit;
+import org.springframework.samples.petclinic.visit.VisitRepository;
+import org.springframework.samples.petclinic.visit.WorkingHour;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Guards the number of SQL statements needed to render the owner details page and the
+ * owner list.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@Transactional
+class OwnerDetailsQueryCountTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private OwnerRepository owners;
+
+	@Autowired
+	private PetRepository pets;
+
+	@Autowired
+	private VisitRepository visits;
+
+	@Autowired
+	private VetRepository vets;
+
+	@Test
+	void shouldShowOwnerWithFixedNumberOfStatements() throws Exception {
+		long singlePet = statementsToShow(createOwnerWithPets("Breeder", 1));
+		long household = statementsToShow(createOwnerWithPets("Breeder", 6));
+		assertThat(household).isEqualTo(singlePet);
+	}
+
+	@Test
+	void shouldListOwnersWithFixedNumberOfStatements() throws Exception {
+		// two pages of owners
+		for (int i = 0; i < 10; i++) {
+			createOwnerWithPets("Kennelworth", 3);
+		}
+		this.entityManager.flush();
+		this.entityManager.clear();
+		Statistics statistics = this.entityManager.getEntityManagerFactory().unwrap(SessionFactory.class)
+				.getStatistics();
+		statistics.clear();
+		this.mockMvc.perform(get("/owners").param("lastName", "Kennelworth").param("page", "2"))
+				.andExpect(status().isOk());
+		// the page of ids, the owners with their pets and the count for the pager
+		assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+	}
+
+	private Owner createOwnerWithPets(String lastName, int count) {
+		Owner owner = new Owner();
+		owner.setFirstName("Sam");
+		owner.setLastName(lastName);
+		owner.setAddress("4, Evans Street");
+		owner.setCity("Wollongong");
+		owner.setTelephone("4444444444");
+		this.owners.save(owner);
+
+		List<PetType> types = this.pets.findPetTypes();
+		List<Vet> vets = new ArrayList<>(this.vets.findAll());
+		List<WorkingHour> hours = this.visits.findWorkingHours();
+		for (int i = 0; i < count; i++) {
+			Pet pet = new Pet();
+			pet.setName("pet" + i);
+			pet.setBirthDate(LocalDate.now());
+			pet.setType(types.get(i % types.size()));
+			owner.addPet(pet);
+			this.pets.save(pet);
+
+			Visit visit = new Visit();
+			visit.setDescription("check-up");
+			visit.setDate(LocalDate.now().plusDays(count));
+			visit.setVet(vets.get(i % vets.size()));
+			visit.setTime(hours.get(i % hours.size()));
+			pet.addVisit(visit);
+			this.visits.save(visit);
+		}
+		return owner;
+	}
+
+	private long statementsToShow(Owner owner) throws Exception {
+		this.entityManager.flush();
+		this.entityManager.clear();
+		Statistics statistics = this.entityManager.getEntityManagerFactory().unwrap(SessionFactory.class)
+				.getStatistics();
+		statistics.clear();
+		this.mockMvc.perform(get("/owners/{ownerId}", owner.getId())).andExpect(status().isOk());
+		return statistics.getPrepareStatementCount();
+	}
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.Reader;
+import java.io.Writer;
+import java.util.UUID;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Test class for {@link OwnerImportController}
+ */
+@WebMvcTest(OwnerImportController.class)
+class OwnerImportControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockBean
+	private OwnerImport ownerImport;
+
+	@Test
+	void testImportOwners() throws Exception {
+		ImportReport report = new ImportReport();
+		report.line();
+		report.owner();
+		given(this.ownerImport.importCsv(any(Reader.class), any(Writer.class))).willReturn(report);
+		mockMvc.perform(post("/owners/import").contentType("text/csv").content(OwnerImportTests.HEADER))
+				.andExpect(status().isOk()).andExpect(jsonPath("lines").value(1)).andExpect(jsonPath("owners").value(1))
+				.andExpect(jsonPath("rejected").value(0)).andExpect(jsonPath("errorReport").doesNotExist());
+	}
+
+	@Test
+	void testDownloadRejectedLines() throws Exception {
+		given(this.ownerImport.importCsv(any(Reader.class), any(Writer.class))).willAnswer(invocation -> {
+			invocation.getArgument(1, Writer.class).write("line,field,message\n2,telephone,\"invalid\"\n");
+			ImportReport report = new ImportReport();
+			report.line();
+			report.reject();
+			return report;
+		});
+		String body = mockMvc.perform(post("/owners/import").contentType("text/csv").content(OwnerImportTests.HEADER))
+				.andExpect(status().isOk()).andExpect(jsonPath("rejected").value(1))
+				.andExpect(jsonPath("errorReport", startsWith("/owners/import/errors/"))).andReturn().getResponse()
+				.getContentAsString();
+		String errorReport = JsonPath.read(body, "errorReport");
+		assertThat(errorReport).doesNotContain(System.getProperty("java.io.tmpdir"));
+
+		mockMvc.perform(get(errorReport)).andExpect(status().isOk())
+				.andExpect(content().string("line,field,message\n2,telephone,\"invalid\"\n"));
+	}
+
+	@Test
+	void testDownloadUnknownErrorReport() throws Exception {
+		mockMvc.perform(get("/owners/import/errors/{id}", UUID.randomUUID())).andExpect(status().isNotFound());
+		mockMvc.perform(get("/owners/import/errors/{id}", "..%2Fsecrets")).andExpect(status().isNotFound());
+	}
+
+	@Test
+	void testImportWithoutOwnerColumns() throws Exception {
+		given(this.ownerImport.importCsv(any(Reader.class), any(Writer.class)))
+				.willThrow(new IllegalArgumentException("Missing columns [address]"));
+		mockMvc.perform(post("/owners/import").contentType("text/csv").content("firstName,lastName\n"))
+				.andExpect(status().isBadRequest());
+	}
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.samples.petclinic.system.ReferenceData;
+
+/**
+ * Test class for {@link OwnerImport}
+ */
+@DataJpaTest(properties = "petclinic.import.chunk-size=2")
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@ImportAutoConfiguration(ValidationAutoConfiguration.class)
+@Import({ OwnerImport.class, OwnerTypeahead.class, OwnerCountService.class, ReferenceData.class })
+class OwnerImportTests {
+
+	static final String HEADER = "firstName,lastName,address,city,telephone,petName,birthDate,type\n";
+
+	@Autowired
+	private OwnerImport ownerImport;
+
+	@Autowired
+	private OwnerRepository owners;
+
+	@Test
+	void shouldImportOwnersWithTheirPets() throws Exception {
+		String csv = HEADER + "Ann,Importer,1 Main St,Madison,6085551111,Rex,2019-03-01,dog\n"
+				+ "Ann,Importer,1 Main St,Madison,6085551111,Tom,2020-04-02,Cat\n"
+				+ "Ann,Importer,1 Main St,Madison,6085551111,Kiwi,2021-05-03,bird\n"
+				+ "\"Bob, Jr.\",Importer,2 Main St,Madison,6085552222,,,\n";
+		StringWriter errors = new StringWriter();
+
+		ImportReport report = this.ownerImport.importCsv(new StringReader(csv), errors);
+
+		assertThat(report.getLines()).isEqualTo(4);
+		assertThat(report.getOwners()).isEqualTo(2);
+		assertThat(report.getPets()).isEqualTo(3);
+		assertThat(report.getRejected()).isZero();
+		assertThat(errors.toString()).isEqualTo("line,field,message\n");
+		assertThat(importers()).extracting(Owner::getFirstName).containsExactly("Ann", "Bob, Jr.");
+		Owner ann = importers().get(0);
+		assertThat(ann.getPets()).extracting(Pet::getName).containsExactly("Kiwi", "Rex", "Tom");
+		assertThat(ann.getPet("Rex").getType().getName()).isEqualTo("dog");
+		assertThat(ann.getPet("Tom").getType().getName()).isEqualTo("cat");
+	}
+
+	@Test
+	void shouldReportRejectedLines() throws Exception {
+		String csv = HEADER + "Ann,Importer,1 Main St,Madison,608-555,Rex,2019-03-01,dog\n"
+				+ "Carl,Importer,3 Main St,Madison,6085553333,Rex,2019-03-01,dragon\n"
+				+ "Carl,Importer,3 Main St,Madison,6085553333,Tom,March,cat\n"
+				+ "Carl,Importer,3 Main St,Madison,6085553333,Kiwi,2021-05-03,bird\n"
+				+ "Carl,Importer,3 Main St,Madison,6085553333,kiwi,2021-05-03,bird\n";
+		StringWriter errors = new StringWriter();
+
+		ImportReport report = this.ownerImport.importCsv(new StringReader(csv), errors);
+
+		assertThat(report.getLines()).isEqualTo(5);
+		assertThat(report.getOwners()).isEqualTo(1);
+		assertThat(report.getPets()).isEqualTo(1);
+		assertThat(report.getRejected()).isEqualTo(4);
+		assertThat(errors.toString()).startsWith("line,field,message\n2,telephone,").contains(
+				"3,type,\"unknown pet type dragon\"\n", "4,birthDate,\"invalid date March\"\n",
+				"6,petName,\"already exists\"\n");
+		assertThat(importers()).extracting(Owner::getFirstName).containsExactly("Carl");
+	}
+
+	@Test
+	void shouldRequireOwnerColumns() {
+		assertThatIllegalArgumentException()
+				.isThrownBy(
+						() -> this.ownerImport.importCsv(new StringReader("firstName,lastName\n"), new StringWriter()))
+				.withMessageContaining("address");
+	}
+
+	private List<Owner> importers() {
+		return this.owners.findWithPetsInOrder(this.owners.findIdsByLastName("Importer", PageRequest.of(0, 10)));
+	}
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Measures saving a thousand new owners in one transaction, with inserts sent one by one
+ * and in JDBC batches of the pooled id block size. The transaction is rolled back so
+ * every invocation starts from the same data. Not run by the build; run it from the IDE
+ * or with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.springframework.samples.petclinic.owner.OwnerInsertBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OwnerInsertBenchmark {
+
+	private static final int OWNERS = 1000;
+
+	@Param({ "1", "50" })
+	public int batchSize;
+
+	private ConfigurableApplicationContext context;
+
+	private OwnerRepository owners;
+
+	private TransactionTemplate transactionTemplate;
+
+	@Setup
+	public void setup() {
+		this.context = new SpringApplicationBuilder(PetClinicApplication.class).web(WebApplicationType.NONE)
+				.properties("spring.jpa.properties.hibernate.jdbc.batch_size=" + this.batchSize,
+						"spring.jpa.properties.hibernate.generate_statistics=false", "logging.level.root=WARN")
+				.run();
+		this.owners = this.context.getBean(OwnerRepository.class);
+		this.transactionTemplate = new TransactionTemplate(this.context.getBean(PlatformTransactionManager.class));
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.context.close();
+	}
+
+	@Benchmark
+	public int insertOwners() {
+		return this.transactionTemplate.execute(status -> {
+			for (int i = 0; i < OWNERS; i++) {
+				Owner owner = new Owner();
+				owner.setFirstName("Owner" + i);
+				owner.setLastName("Benchmark");
+				owner.setAddress("4, Evans Street");
+				owner.setCity("Wollongong");
+				owner.setTelephone("4444444444");
+				this.owners.save(owner);
+			}
+			// flush before rolling back, so the inserts are actually sent
+			status.flush();
+			status.setRollbackOnly();
+			return OWNERS;
+		});
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(OwnerInsertBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+import java.util.Arrays;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.samples.petclinic.model.Keyset;
+
+/**
+ * Test class for {@link OwnerSearchIndex}
+ */
+class OwnerSearchIndexTests {
+
+	private OwnerRepository owners;
+
+	private OwnerSearchIndex index;
+
+	@BeforeEach
+	void setup() {
+		this.owners = mock(OwnerRepository.class);
+		given(this.owners.findAllNames()).willReturn(Arrays.asList(name(1, "Franklin"), name(2, "Davis"),
+				name(3, "Rodriquez"), name(4, "Davis"), name(6, "coleman"), name(8, "Escobito")));
+		this.index = new OwnerSearchIndex(this.owners);
+		this.index.afterSingletonsInstantiated();
+	}
+
+	@Test
+	void shouldFindIdsByPrefixIgnoringCase() {
+		assertThat(this.index.findIdsAfter("da", Keyset.FIRST, 10)).containsExactly(2, 4);
+		assertThat(this.index.findIdsAfter("C", Keyset.FIRST, 10)).containsExactly(6);
+		assertThat(this.index.findIdsAfter("Davisson", Keyset.FIRST, 10)).isEmpty();
+	}
+
+	@Test
+	void shouldSeekThroughAllOwnersInNameOrder() {
+		assertThat(this.index.findIdsAfter("", Keyset.FIRST, 3)).containsExactly(6, 2, 4);
+		assertThat(this.index.findIdsAfter("", Keyset.of(owner(4, "Davis")), 3)).containsExactly(8, 1, 3);
+		assertThat(this.index.findIdsAfter("", Keyset.of(owner(3, "Rodriquez")), 3)).isEmpty();
+		assertThat(this.index.findIdsBefore("", Keyset.of(owner(8, "Escobito")), 2)).containsExactly(4, 2);
+		assertThat(this.index.findIdsBefore("", Keyset.of(owner(6, "Coleman")), 2)).isEmpty();
+		assertThat(this.index.count("", 100)).isEqualTo(6);
+		assertThat(this.index.count("", 4)).isEqualTo(4);
+	}
+
+	@Test
+	void shouldSeekWithinPrefix() {
+		assertThat(this.index.findIdsAfter("Da", Keyset.of(owner(2, "Davis")), 10)).containsExactly(4);
+		assertThat(this.index.findIdsAfter("Da", Keyset.of(owner(6, "Coleman")), 10)).containsExactly(2, 4);
+		assertThat(this.index.findIdsAfter("Da", Keyset.of(owner(1, "Franklin")), 10)).isEmpty();
+		assertThat(this.index.findIdsBefore("Da", Keyset.of(owner(1, "Franklin")), 10)).containsExactly(4, 2);
+		assertThat(this.index.findIdsBefore("Da", Keyset.of(owner(4, "Davis")), 10)).containsExactly(2);
+	}
+
+	@Test
+	void shouldMoveRenamedOwner() {
+		this.index.put(2, "Black");
+		this.index.put(10, "Davis");
+		assertThat(this.index.findIdsAfter("Davis", Keyset.FIRST, 10)).containsExactly(4, 10);
+		assertThat(this.index.findIdsAfter("B", Keyset.FIRST, 10)).containsExactly(2);
+	}
+
+	private Owner owner(Integer id, String lastName) {
+		Owner owner = new Owner();
+		owner.setId(id);
+		owner.setLastName(lastName);
+		return owner;
+	}
+
+	private static OwnerRepository.OwnerName name(Integer id, String lastName) {
+		return new OwnerRepository.OwnerName() {
+
+			@Override
+			public Integer getId() {
+				return id;
+			}
+
+			@Override
+			public String getLastName() {
+				return lastName;
+			}
+		};
+	}
+
+}
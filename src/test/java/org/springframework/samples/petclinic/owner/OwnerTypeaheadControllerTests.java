@@ -0,0 +1,63 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Test class for {@link OwnerTypeaheadController}
+ */
+@WebMvcTest(OwnerTypeaheadController.class)
+class OwnerTypeaheadControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockBean
+	private OwnerTypeahead typeahead;
+
+	@Test
+	void testSuggest() throws Exception {
+		Owner george = new Owner();
+		george.setId(1);
+		george.setFirstName("George");
+		george.setLastName("Franklin");
+		george.setCity("Madison");
+		Pet max = new Pet();
+		max.setName("Max");
+		george.addPet(max);
+		given(this.typeahead.suggest("Fr")).willReturn(Collections.singletonList(new OwnerSuggestion(george)));
+
+		mockMvc.perform(get("/owners/typeahead").param("lastName", "Fr").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk()).andExpect(jsonPath("$", hasSize(1))).andExpect(jsonPath("$[0].id").value(1))
+				.andExpect(jsonPath("$[0].name").value("George Franklin"))
+				.andExpect(jsonPath("$[0].city").value("Madison")).andExpect(jsonPath("$[0].pets[0]").value("Max"));
+	}
+
+}
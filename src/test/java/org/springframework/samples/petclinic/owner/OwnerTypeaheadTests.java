@@ -0,0 +1,113 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Test class for {@link OwnerTypeahead}
+ */
+class OwnerTypeaheadTests {
+
+	private OwnerRepository owners;
+
+	private OwnerTypeahead typeahead;
+
+	@BeforeEach
+	void setup() {
+		this.owners = mock(OwnerRepository.class);
+		given(this.owners.findIdsByLastName(eq("d"), any(Pageable.class))).willReturn(Arrays.asList(4, 2));
+		given(this.owners.findIdsByLastName(eq("davis"), any(Pageable.class))).willReturn(Arrays.asList(4, 2));
+		given(this.owners.findWithPetsInOrder(anyList())).willCallRealMethod();
+		given(this.owners.findWithPetsByIdIn(anyCollection()))
+				.willReturn(Arrays.asList(owner(2, "Betty", "Davis"), owner(4, "Harold", "Davis")));
+		this.typeahead = new OwnerTypeahead(this.owners, Optional.empty(),
+				Optional.of(new ConcurrentMapCacheManager(OwnerTypeahead.CACHE)), 10, 3);
+	}
+
+	@Test
+	void shouldKeepRepositoryOrder() {
+		List<OwnerSuggestion> suggestions = this.typeahead.suggest("D");
+		assertThat(suggestions).extracting(OwnerSuggestion::getId).containsExactly(4, 2);
+		assertThat(suggestions.get(0).getName()).isEqualTo("Harold Davis");
+	}
+
+	@Test
+	void shouldCacheShortPrefixes() {
+		this.typeahead.suggest("D");
+		this.typeahead.suggest("D ");
+		verify(this.owners, times(1)).findIdsByLastName(eq("d"), any(Pageable.class));
+	}
+
+	@Test
+	void shouldNotCacheLongPrefixes() {
+		this.typeahead.suggest("Davis");
+		this.typeahead.suggest("Davis");
+		verify(this.owners, times(2)).findIdsByLastName(eq("davis"), any(Pageable.class));
+	}
+
+	@Test
+	void shouldEvictPrefixesOfChangedOwner() {
+		this.typeahead.suggest("D");
+		this.typeahead.ownerChanged("Franklin");
+		this.typeahead.suggest("D");
+		verify(this.owners, times(1)).findIdsByLastName(eq("d"), any(Pageable.class));
+		this.typeahead.ownerChanged("Davis");
+		this.typeahead.suggest("D");
+		verify(this.owners, times(2)).findIdsByLastName(eq("d"), any(Pageable.class));
+	}
+
+	@Test
+	void shouldShareEntryAcrossCase() {
+		this.typeahead.suggest("d");
+		this.typeahead.suggest("D");
+		verify(this.owners, times(1)).findIdsByLastName(eq("d"), any(Pageable.class));
+		this.typeahead.ownerChanged("DAVIS");
+		this.typeahead.suggest("D");
+		verify(this.owners, times(2)).findIdsByLastName(eq("d"), any(Pageable.class));
+	}
+
+	@Test
+	void shouldIgnoreBlankPrefix() {
+		assertThat(this.typeahead.suggest(" ")).isEmpty();
+	}
+
+	private static Owner owner(int id, String firstName, String lastName) {
+		Owner owner = new Owner();
+		owner.setId(id);
+		owner.setFirstName(firstName);
+		owner.setLastName(lastName);
+		owner.setCity("Madison");
+		return owner;
+	}
+
+}
@@ -31,6 +31,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.FilterType;
+import org.springframework.samples.petclinic.system.ReferenceData;
 import org.springframework.test.web.servlet.MockMvc;
 
 /**
@@ -55,13 +56,22 @@ class PetControllerTests {
 	@MockBean
 	private OwnerRepository owners;
 
+	@MockBean
+	private OwnerTypeahead typeahead;
+
+	@MockBean
+	private ReferenceData referenceData;
+
 	@BeforeEach
 	void setup() {
 		PetType cat = new PetType();
 		cat.setId(3);
 		cat.setName("hamster");
 		given(this.pets.findPetTypes()).willReturn(Lists.newArrayList(cat));
-		given(this.owners.findById(TEST_OWNER_ID)).willReturn(new Owner());
+		given(this.referenceData.findPetType(3)).willReturn(cat);
+		Owner owner = new Owner();
+		owner.setId(TEST_OWNER_ID);
+		given(this.owners.findWithoutPetsById(TEST_OWNER_ID)).willReturn(owner);
 		given(this.pets.findById(TEST_PET_ID)).willReturn(new Pet());
 
 	}
@@ -74,8 +84,8 @@ class PetControllerTests {
 
 	@Test
 	void testProcessCreationFormSuccess() throws Exception {
-		mockMvc.perform(post("/owners/{ownerId}/pets/new", TEST_OWNER_ID).param("name", "Betty")
-				.param("type", "3").param("birthDate", "2015-02-12")).andExpect(status().is3xxRedirection())
+		mockMvc.perform(post("/owners/{ownerId}/pets/new", TEST_OWNER_ID).param("name", "Betty").param("type", "3")
+				.param("birthDate", "2015-02-12")).andExpect(status().is3xxRedirection())
 				.andExpect(view().name("redirect:/owners/{ownerId}"));
 	}
 
@@ -88,6 +98,15 @@ class PetControllerTests {
 				.andExpect(view().name("pets/createOrUpdatePetForm"));
 	}
 
+	@Test
+	void testProcessCreationFormDuplicateName() throws Exception {
+		given(this.pets.existsByOwnerIdAndNameIgnoreCase(TEST_OWNER_ID, "Betty")).willReturn(true);
+		mockMvc.perform(post("/owners/{ownerId}/pets/new", TEST_OWNER_ID).param("name", "Betty").param("type", "3")
+				.param("birthDate", "2015-02-12"))
+				.andExpect(model().attributeHasFieldErrorCode("pet", "name", "duplicate")).andExpect(status().isOk())
+				.andExpect(view().name("pets/createOrUpdatePetForm"));
+	}
+
 	@Test
 	void testInitUpdateForm() throws Exception {
 		mockMvc.perform(get("/owners/{ownerId}/pets/{petId}/edit", TEST_OWNER_ID, TEST_PET_ID))
@@ -30,6 +30,9 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.samples.petclinic.system.ReferenceData;
+import org.springframework.samples.petclinic.vet.VetRepository;
+import org.springframework.samples.petclinic.visit.VisitRepository;
 
 /**
  * Test class for {@link PetTypeFormatter}
@@ -42,11 +45,17 @@ class PetTypeFormatterTests {
 	@Mock
 	private PetRepository pets;
 
+	@Mock
+	private VetRepository vets;
+
+	@Mock
+	private VisitRepository visits;
+
 	private PetTypeFormatter petTypeFormatter;
 
 	@BeforeEach
 	void setup() {
-		this.petTypeFormatter = new PetTypeFormatter(pets);
+		this.petTypeFormatter = new PetTypeFormatter(new ReferenceData(vets, pets, visits));
 	}
 
 	@Test
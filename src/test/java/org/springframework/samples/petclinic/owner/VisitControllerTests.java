@@ -16,21 +16,49 @@
 
 package org.springframework.samples.petclinic.owner;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasProperty;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
 
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Arrays;
+import java.util.Collections;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.samples.petclinic.system.ReferenceData;
+import org.springframework.samples.petclinic.vet.Vet;
+import org.springframework.samples.petclinic.vet.VetFormatter;
 import org.springframework.samples.petclinic.vet.VetRepository;
+import org.springframework.samples.petclinic.visit.SlotAvailability;
+import org.springframework.samples.petclinic.visit.SlotHolds;
+import org.springframework.samples.petclinic.visit.Visit;
+import org.springframework.samples.petclinic.visit.Recurrence;
 import org.springframework.samples.petclinic.visit.VisitRepository;
+import org.springframework.samples.petclinic.visit.VisitSeries;
+import org.springframework.samples.petclinic.visit.VisitSeriesBooking;
+import org.springframework.samples.petclinic.visit.WorkingHour;
+import org.springframework.samples.petclinic.visit.WorkingHourFormatter;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
 
 /**
  * Test class for {@link VisitController}
@@ -38,25 +66,65 @@ import org.springframework.test.web.servlet.MockMvc;
  * @author Colin But
  */
 @WebMvcTest(VisitController.class)
+@Import({ SlotAvailability.class, SlotHolds.class, ReferenceData.class, VetFormatter.class,
+		WorkingHourFormatter.class })
 class VisitControllerTests {
 
 	private static final int TEST_PET_ID = 1;
 
+	private static final int TEST_VET_ID = 1;
+
+	private static final LocalDate NEXT_MONDAY = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+
 	@Autowired
 	private MockMvc mockMvc;
 
+	@Autowired
+	private SlotHolds holds;
+
 	@MockBean
 	private VisitRepository visits;
 
 	@MockBean
 	private PetRepository pets;
 
+	@MockBean
+	private VisitSeriesBooking seriesBooking;
+
 	@MockBean
 	private VetRepository vets;
 
+	@MockBean
+	private PlatformTransactionManager transactionManager;
+
 	@BeforeEach
 	void init() {
 		given(this.pets.findById(TEST_PET_ID)).willReturn(new Pet());
+		Vet vet = new Vet();
+		vet.setId(TEST_VET_ID);
+		given(this.vets.findAll()).willReturn(Collections.singletonList(vet));
+		given(this.visits.findWorkingHours())
+				.willReturn(Arrays.asList(workingHour(1, "8:00 am", 480), workingHour(2, "9:00 am", 540)));
+		VisitRepository.BookedSlot booked = new VisitRepository.BookedSlot() {
+
+			@Override
+			public LocalDate getDate() {
+				return NEXT_MONDAY;
+			}
+
+			@Override
+			public Integer getStartMinute() {
+				return 480;
+			}
+
+			@Override
+			public Integer getDuration() {
+				return 60;
+			}
+
+		};
+		given(this.visits.findBookedSlots(eq(TEST_VET_ID), eq(NEXT_MONDAY.withDayOfMonth(1)), any(LocalDate.class)))
+				.willReturn(Collections.singletonList(booked));
 	}
 
 	@Test
@@ -68,8 +136,8 @@ class VisitControllerTests {
 	@Test
 	void testProcessNewVisitFormSuccess() throws Exception {
 		mockMvc.perform(post("/owners/*/pets/{petId}/visits/new", TEST_PET_ID).param("name", "George")
-				.param("description", "Visit Description")).andExpect(status().is3xxRedirection())
-				.andExpect(view().name("redirect:/owners/{ownerId}"));
+				.param("date", NEXT_MONDAY.toString()).param("description", "Visit Description"))
+				.andExpect(status().is3xxRedirection()).andExpect(view().name("redirect:/owners/{ownerId}"));
 	}
 
 	@Test
@@ -79,4 +147,115 @@ class VisitControllerTests {
 				.andExpect(view().name("pets/createOrUpdateVisitForm"));
 	}
 
+	@Test
+	void testInitNewVisitFormOffersFreeSlots() throws Exception {
+		mockMvc.perform(get("/owners/*/pets/{petId}/visits/new", TEST_PET_ID).param("vet", "1").param("date",
+				NEXT_MONDAY.toString())).andExpect(status().isOk())
+				.andExpect(model().attribute("workingHours", contains(hasProperty("name", is("9:00 am")))));
+	}
+
+	@Test
+	void testProcessNewVisitFormBookedSlot() throws Exception {
+		mockMvc.perform(post("/owners/{ownerId}/pets/{petId}/visits/new", 1, TEST_PET_ID).param("vet", "1")
+				.param("date", NEXT_MONDAY.toString()).param("time", "1").param("description", "Visit Description"))
+				.andExpect(status().isOk()).andExpect(model().attributeHasFieldErrors("visit", "time"))
+				.andExpect(view().name("pets/createOrUpdateVisitForm"));
+		verify(this.visits, never()).save(any(Visit.class));
+	}
+
+	@Test
+	void testInitNewVisitFormHoldsSlot() throws Exception {
+		mockMvc.perform(get("/owners/*/pets/{petId}/visits/new", TEST_PET_ID).param("vet", "1")
+				.param("date", NEXT_MONDAY.plusWeeks(1).toString()).param("time", "2")).andExpect(status().isOk())
+				.andExpect(model().attributeExists("holdToken"));
+
+		mockMvc.perform(post("/owners/{ownerId}/pets/{petId}/visits/new", 1, TEST_PET_ID).param("vet", "1")
+				.param("date", NEXT_MONDAY.plusWeeks(1).toString()).param("time", "2")
+				.param("description", "Visit Description")).andExpect(status().isOk())
+				.andExpect(model().attributeHasFieldErrors("visit", "time"));
+		verify(this.visits, never()).save(any(Visit.class));
+	}
+
+	@Test
+	void testProcessNewVisitFormWithOwnHold() throws Exception {
+		String token = this.holds.hold(TEST_VET_ID, NEXT_MONDAY.plusWeeks(2), 540, 600, null);
+
+		mockMvc.perform(post("/owners/{ownerId}/pets/{petId}/visits/new", 1, TEST_PET_ID).param("vet", "1")
+				.param("date", NEXT_MONDAY.plusWeeks(2).toString()).param("time", "2")
+				.param("description", "Visit Description").param("holdToken", token))
+				.andExpect(status().is3xxRedirection());
+		verify(this.visits).save(any(Visit.class));
+		assertThat(this.holds.isHeldByOther(TEST_VET_ID, NEXT_MONDAY.plusWeeks(2), 540, 600, null)).isFalse();
+	}
+
+	@Test
+	void testProcessNewVisitFormFirstAvailable() throws Exception {
+		LocalDate date = NEXT_MONDAY.plusWeeks(3);
+		this.holds.hold(TEST_VET_ID, date, 480, 540, null);
+
+		mockMvc.perform(post("/owners/{ownerId}/pets/{petId}/visits/new", 1, TEST_PET_ID).param("vet", "1")
+				.param("date", date.toString()).param("description", "Visit Description").param("firstAvailable", ""))
+				.andExpect(status().is3xxRedirection());
+		verify(this.visits).save(argThat(visit -> visit.getTime().getId() == 2));
+	}
+
+	@Test
+	void testProcessNewVisitFormFirstAvailableWithoutFreeTime() throws Exception {
+		LocalDate date = NEXT_MONDAY.plusWeeks(4);
+		this.holds.hold(TEST_VET_ID, date, 480, 540, null);
+		this.holds.hold(TEST_VET_ID, date, 540, 600, null);
+
+		mockMvc.perform(post("/owners/{ownerId}/pets/{petId}/visits/new", 1, TEST_PET_ID).param("vet", "1")
+				.param("date", date.toString()).param("description", "Visit Description").param("firstAvailable", ""))
+				.andExpect(status().isOk()).andExpect(model().attributeHasFieldErrors("visit", "time"))
+				.andExpect(view().name("pets/createOrUpdateVisitForm"));
+		verify(this.visits, never()).save(any(Visit.class));
+	}
+
+	@Test
+	void testInitNewVisitSeriesForm() throws Exception {
+		mockMvc.perform(get("/owners/*/pets/{petId}/visits/series/new", TEST_PET_ID)).andExpect(status().isOk())
+				.andExpect(model().attributeExists("visit", "recurrence"))
+				.andExpect(view().name("pets/createVisitSeriesForm"));
+	}
+
+	@Test
+	void testProcessNewVisitSeriesForm() throws Exception {
+		given(this.seriesBooking.book(any(Visit.class), any(Recurrence.class))).willReturn(new VisitSeries());
+		mockMvc.perform(post("/owners/{ownerId}/pets/{petId}/visits/series/new", 1, TEST_PET_ID).param("vet", "1")
+				.param("date", NEXT_MONDAY.toString()).param("time", "2").param("description", "Physiotherapy")
+				.param("frequency", "BIWEEKLY").param("count", "6")).andExpect(status().isOk())
+				.andExpect(model().attributeExists("series")).andExpect(view().name("pets/createVisitSeriesForm"));
+		verify(this.seriesBooking).book(any(Visit.class),
+				argThat(recurrence -> recurrence.getFrequency() == Recurrence.Frequency.BIWEEKLY
+						&& recurrence.getCount() == 6));
+	}
+
+	@Test
+	void testProcessNewVisitSeriesFormWithoutEnd() throws Exception {
+		mockMvc.perform(post("/owners/{ownerId}/pets/{petId}/visits/series/new", 1, TEST_PET_ID).param("vet", "1")
+				.param("date", NEXT_MONDAY.toString()).param("time", "2").param("description", "Physiotherapy"))
+				.andExpect(status().isOk()).andExpect(model().attributeHasFieldErrors("recurrence", "count"))
+				.andExpect(model().attributeDoesNotExist("series"));
+		verify(this.seriesBooking, never()).book(any(Visit.class), any(Recurrence.class));
+	}
+
+	@Test
+	void testProcessNewVisitSeriesFormEndingBeforeStart() throws Exception {
+		mockMvc.perform(post("/owners/{ownerId}/pets/{petId}/visits/series/new", 1, TEST_PET_ID).param("vet", "1")
+				.param("date", NEXT_MONDAY.toString()).param("time", "2").param("description", "Physiotherapy")
+				.param("until", NEXT_MONDAY.minusDays(1).toString())).andExpect(status().isOk())
+				.andExpect(model().attributeHasFieldErrors("recurrence", "until"))
+				.andExpect(model().attributeDoesNotExist("series"));
+		verify(this.seriesBooking, never()).book(any(Visit.class), any(Recurrence.class));
+	}
+
+	private static WorkingHour workingHour(int id, String name, int startMinute) {
+		WorkingHour workingHour = new WorkingHour();
+		workingHour.setId(id);
+		workingHour.setName(name);
+		workingHour.setStartMinute(startMinute);
+		return workingHour;
+	}
+
 }
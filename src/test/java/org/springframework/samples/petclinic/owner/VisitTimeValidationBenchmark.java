@@ -0,0 +1,78 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.samples.petclinic.visit.WorkingHour;
+
+/**
+ * Compares the "not within the next hour" check of {@link VisitController} when the
+ * working hour name is parsed on every booking, as it used to be, with comparing the
+ * persisted start minute. Not run by the build; run it from the IDE or with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.springframework.samples.petclinic.owner.VisitTimeValidationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VisitTimeValidationBenchmark {
+
+	private WorkingHour workingHour;
+
+	@Setup
+	public void setup() {
+		this.workingHour = new WorkingHour();
+		this.workingHour.setId(6);
+		this.workingHour.setName("1:00 pm");
+		this.workingHour.setStartMinute(13 * 60);
+	}
+
+	@Benchmark
+	public boolean parseName() {
+		LocalTime localTime = LocalTime.parse(this.workingHour.getName().toUpperCase(),
+				DateTimeFormatter.ofPattern("[h:mm a][hh:mm a]"));
+		return localTime.isBefore(LocalTime.now().plusHours(1));
+	}
+
+	@Benchmark
+	public boolean compareStartMinute() {
+		return this.workingHour.getStartMinute() < WorkingHour.minuteOfDay(LocalTime.now().plusHours(1));
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(VisitTimeValidationBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
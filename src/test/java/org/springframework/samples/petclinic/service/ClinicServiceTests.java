@@ -18,28 +18,53 @@ package org.springframework.samples.petclinic.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.samples.petclinic.model.Keyset;
 import org.springframework.samples.petclinic.model.NamedEntity;
 import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.OwnerCount;
+import org.springframework.samples.petclinic.owner.OwnerCountService;
 import org.springframework.samples.petclinic.owner.OwnerRepository;
 import org.springframework.samples.petclinic.owner.Pet;
 import org.springframework.samples.petclinic.owner.PetRepository;
 import org.springframework.samples.petclinic.owner.PetType;
+import org.springframework.samples.petclinic.system.ReferenceDataChangedEvent;
+import org.springframework.samples.petclinic.vet.Specialty;
 import org.springframework.samples.petclinic.vet.Vet;
 import org.springframework.samples.petclinic.vet.VetRepository;
+import org.springframework.samples.petclinic.visit.Recurrence;
+import org.springframework.samples.petclinic.visit.SlotHolds;
 import org.springframework.samples.petclinic.visit.Visit;
 import org.springframework.samples.petclinic.visit.VisitRepository;
+import org.springframework.samples.petclinic.visit.SlotAvailability;
+import org.springframework.samples.petclinic.visit.VisitSeries;
+import org.springframework.samples.petclinic.visit.VisitSeriesBooking;
+import org.springframework.samples.petclinic.visit.WorkingHour;
 import org.springframework.stereotype.Service;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -70,9 +95,12 @@ import org.springframework.transaction.annotation.Transactional;
  * @author Michael Isvy
  * @author Dave Syer
  */
-@DataJpaTest(includeFilters = @ComponentScan.Filter(Service.class))
+@DataJpaTest(includeFilters = @ComponentScan.Filter(Service.class),
+		properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 // Ensure that if the mysql profile is active we connect to the real database:
 @AutoConfigureTestDatabase(replace = Replace.NONE)
+@RecordApplicationEvents
+@Import(SlotHolds.class)
 class ClinicServiceTests {
 
 	@Autowired
@@ -87,15 +115,81 @@ class ClinicServiceTests {
 	@Autowired
 	protected VetRepository vets;
 
-	Pageable pageable;
+	@Autowired
+	protected OwnerCountService ownerCounts;
+
+	@Autowired
+	protected VisitSeriesBooking seriesBooking;
+
+	@Autowired
+	protected SlotHolds holds;
+
+	@Autowired
+	protected SlotAvailability availability;
+
+	@Autowired
+	protected EntityManager entityManager;
+
+	@Autowired
+	protected ApplicationEvents events;
 
 	@Test
 	void shouldFindOwnersByLastName() {
-		Page<Owner> owners = this.owners.findByLastName("Davis", pageable);
-		assertThat(owners).hasSize(2);
+		List<Integer> ids = this.owners.findIdsByLastName("Davis", PageRequest.of(0, 10));
+		assertThat(ids).hasSize(2);
+
+		ids = this.owners.findIdsByLastName("Daviss", PageRequest.of(0, 10));
+		assertThat(ids).isEmpty();
+	}
+
+	@Test
+	void shouldFindOwnerSliceByLastName() {
+		Slice<Integer> ids = this.owners.findIdSliceByLastName("", PageRequest.of(0, 4));
+		// Black, Coleman, Davis and Davis
+		assertThat(ids.getContent()).containsExactly(7, 6, 2, 4);
+		assertThat(ids.hasNext()).isTrue();
+		assertThat(this.owners.findWithPetsByIdIn(ids.getContent())).hasSize(4)
+				.allSatisfy(owner -> assertThat(ids.getContent()).contains(owner.getId()));
+	}
+
+	@Test
+	void shouldCountOwnersByLastName() {
+		OwnerCount davis = this.ownerCounts.countByLastName("Davis");
+		assertThat(davis.isExact()).isTrue();
+		assertThat(davis.getCount()).isEqualTo(2);
+
+		OwnerCount everyone = new OwnerCountService(this.owners, Optional.empty(), Optional.empty(), 3)
+				.countByLastName("");
+		assertThat(everyone.isExact()).isFalse();
+		assertThat(everyone.getCount()).isEqualTo(3);
+		assertThat(everyone.toString()).isEqualTo("more than 3");
+	}
+
+	@Test
+	void shouldFindOwnerNamesAndOwnersById() {
+		assertThat(this.owners.findAllNames()).hasSize(10).anySatisfy(name -> {
+			assertThat(name.getId()).isEqualTo(1);
+			assertThat(name.getLastName()).isEqualTo("Franklin");
+		});
+		List<Owner> inOrder = this.owners.findWithPetsInOrder(Arrays.asList(4, 99, 2));
+		assertThat(inOrder).extracting(Owner::getId).containsExactly(4, 2);
+	}
 
-		owners = this.owners.findByLastName("Daviss", pageable);
-		assertThat(owners).isEmpty();
+	@Test
+	void shouldSeekOwnersByLastName() {
+		List<Integer> first = this.owners.findIdsByLastNameAfter("", "", 0, PageRequest.of(0, 3));
+		// Black, Coleman and Davis
+		assertThat(first).containsExactly(7, 6, 2);
+
+		Keyset position = Keyset.decode(Keyset.of(this.owners.findById(first.get(2))).encode());
+		List<Integer> next = this.owners.findIdsByLastNameAfter("", position.getLastName(), position.getId(),
+				PageRequest.of(0, 3));
+		// Davis, Escobito and Estaban
+		assertThat(next).containsExactly(4, 8, 10);
+
+		List<Integer> previous = this.owners.findIdsByLastNameBefore("", position.getLastName(), position.getId(),
+				PageRequest.of(0, 3));
+		assertThat(previous).containsExactly(6, 7);
 	}
 
 	@Test
@@ -110,8 +204,7 @@ class ClinicServiceTests {
 	@Test
 	@Transactional
 	void shouldInsertOwner() {
-		Page<Owner> owners = this.owners.findByLastName("Schultz", pageable);
-		int found = (int) owners.getTotalElements();
+		int found = this.owners.findIdsByLastName("Schultz", PageRequest.of(0, 10)).size();
 
 		Owner owner = new Owner();
 		owner.setFirstName("Sam");
@@ -122,8 +215,27 @@ class ClinicServiceTests {
 		this.owners.save(owner);
 		assertThat(owner.getId().longValue()).isNotEqualTo(0);
 
-		owners = this.owners.findByLastName("Schultz", pageable);
-		assertThat(owners.getTotalElements()).isEqualTo(found + 1);
+		assertThat(this.owners.findIdsByLastName("Schultz", PageRequest.of(0, 10))).hasSize(found + 1);
+	}
+
+	@Test
+	@Transactional
+	void shouldInsertOwnersInBatches() {
+		Statistics statistics = clearAndResetStatistics();
+		for (int i = 0; i < 100; i++) {
+			Owner owner = new Owner();
+			owner.setFirstName("Owner" + i);
+			owner.setLastName("Batch");
+			owner.setAddress("4, Evans Street");
+			owner.setCity("Wollongong");
+			owner.setTelephone("4444444444");
+			this.owners.save(owner);
+		}
+		this.entityManager.flush();
+
+		// two sequence calls for the ids, and two batches of inserts
+		assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(4);
+		assertThat(statistics.getEntityInsertCount()).isEqualTo(100);
 	}
 
 	@Test
@@ -159,6 +271,20 @@ class ClinicServiceTests {
 		assertThat(petType4.getName()).isEqualTo("snake");
 	}
 
+	@Test
+	void shouldServeReferenceDataFromSecondLevelCache() {
+		this.pets.findPetTypes();
+		this.vets.findById(3);
+		Statistics statistics = clearAndResetStatistics();
+
+		assertThat(this.pets.findPetTypes()).hasSize(6);
+		assertThat(this.vets.findById(3).getSpecialties()).hasSize(2);
+		assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+		assertThat(statistics.getSecondLevelCacheHitCount()).isPositive();
+		// the vet query itself still runs, its specialties come from the collection cache
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
 	@Test
 	@Transactional
 	void shouldInsertPetIntoDatabaseAndGenerateId() {
@@ -207,6 +333,57 @@ class ClinicServiceTests {
 			.collect(Collectors.toList())).containsOnly("dentistry", "surgery");
 	}
 
+	@Test
+	void shouldLoadSpecialtiesOfManyVetsInBatches() {
+		List<Specialty> specialties = this.vets.findSpecialties();
+		for (int i = 0; i < 1000; i++) {
+			Vet vet = new Vet();
+			vet.setFirstName("Vet" + i);
+			vet.setLastName("Batch");
+			vet.addSpecialty(specialties.get(i % specialties.size()));
+			this.entityManager.persist(vet);
+		}
+		Statistics statistics = clearAndResetStatistics();
+		this.entityManager.getEntityManagerFactory().getCache().evictAll();
+
+		Collection<Vet> vets = this.vets.findAll();
+		assertThat(vets).hasSizeGreaterThan(1000).allSatisfy(vet -> assertThat(vet.getSpecialties()).isNotNull());
+		// one statement per batch of specialties rather than one per vet
+		assertThat(statistics.getPrepareStatementCount()).isLessThan(20);
+
+		statistics = clearAndResetStatistics();
+		this.entityManager.getEntityManagerFactory().getCache().evictAll();
+		Page<Integer> page = this.vets.findAllIds(PageRequest.of(3, 5));
+		assertThat(this.vets.findWithSpecialtiesByIdIn(page.getContent())).hasSize(5)
+				.allSatisfy(vet -> assertThat(vet.getNrOfSpecialties()).isOne());
+		// the ids of the page, their count and the vets with their specialties
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+	}
+
+	@Test
+	void shouldPublishReferenceDataChangeWhenSavingVet() {
+		Vet vet = this.vets.findById(1);
+		vet.setLastName("Carter-Smith");
+		this.vets.save(vet);
+
+		assertThat(this.events.stream(ReferenceDataChangedEvent.class)).extracting(ReferenceDataChangedEvent::getType)
+				.containsExactly(Vet.class);
+	}
+
+	@Test
+	void shouldSeekVets() {
+		List<Integer> first = this.vets.findIdsAfter("", 0, PageRequest.of(0, 2));
+		// Carter and Douglas
+		assertThat(first).containsExactly(1, 3);
+
+		Keyset position = Keyset.of(this.vets.findById(first.get(1)));
+		List<Integer> next = this.vets.findIdsAfter(position.getLastName(), position.getId(), PageRequest.of(0, 10));
+		// Jenkins, Leary, Ortega and Stevens
+		assertThat(next).containsExactly(6, 2, 4, 5);
+		assertThat(this.vets.findIdsBefore(position.getLastName(), position.getId(), PageRequest.of(0, 10)))
+				.containsExactly(1);
+	}
+
 	@Test
 	@Transactional
 	void shouldAddNewVisitForPet() {
@@ -217,6 +394,7 @@ class ClinicServiceTests {
 		pet7.addVisit(visit);
 		visit.setDescription("test");
 		visit.setVet(vet);
+		visit.setTime(this.visits.findWorkingHours().get(0));
 		this.visits.save(visit);
 		this.pets.save(pet7);
 
@@ -225,6 +403,92 @@ class ClinicServiceTests {
 		assertThat(visit.getId()).isNotNull();
 	}
 
+	@Test
+	@Transactional
+	void shouldBookVisitSeriesSkippingTakenDays() {
+		LocalDate monday = LocalDate.of(2032, 3, 1);
+		Vet vet = this.vets.findById(3);
+		WorkingHour time = this.visits.findWorkingHours().get(0);
+		Visit taken = new Visit();
+		this.pets.findById(8).addVisit(taken);
+		taken.setDescription("taken");
+		taken.setVet(vet);
+		taken.setDate(monday.plusWeeks(2));
+		taken.setTime(time);
+		this.visits.save(taken);
+
+		Visit visit = new Visit();
+		this.pets.findById(7).addVisit(visit);
+		visit.setDescription("physiotherapy");
+		visit.setVet(vet);
+		visit.setDate(monday);
+		visit.setTime(time);
+		Recurrence recurrence = new Recurrence();
+		recurrence.setCount(5);
+		VisitSeries series = this.seriesBooking.book(visit, recurrence);
+
+		assertThat(series.getBooked()).containsExactly(monday, monday.plusWeeks(1), monday.plusWeeks(3),
+				monday.plusWeeks(4));
+		assertThat(series.getRejected()).extracting(VisitSeries.Rejection::getDate)
+				.containsExactly(monday.plusWeeks(2));
+		assertThat(this.visits.findBookedSlots(3, monday, monday.plusWeeks(4))).hasSize(5);
+	}
+
+	@Test
+	@Transactional
+	void shouldNotBookVisitSeriesOverHeldSlots() {
+		LocalDate monday = LocalDate.of(2032, 4, 5);
+		Vet vet = this.vets.findById(3);
+		WorkingHour time = this.visits.findWorkingHours().get(0);
+		this.holds.hold(vet.getId(), monday.plusWeeks(1), time.getStartMinute(),
+				time.getStartMinute() + time.getDuration(), null);
+
+		Visit visit = new Visit();
+		this.pets.findById(7).addVisit(visit);
+		visit.setDescription("physiotherapy");
+		visit.setVet(vet);
+		visit.setDate(monday);
+		visit.setTime(time);
+		Recurrence recurrence = new Recurrence();
+		recurrence.setCount(3);
+		VisitSeries series = this.seriesBooking.book(visit, recurrence);
+
+		assertThat(series.getBooked()).containsExactly(monday, monday.plusWeeks(2));
+		assertThat(series.getRejected()).extracting(VisitSeries.Rejection::getDate)
+				.containsExactly(monday.plusWeeks(1));
+	}
+
+	@Test
+	@Transactional
+	void shouldNotBookVisitSeriesOverVisitsOfOtherInstances() {
+		LocalDate monday = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY)).plusWeeks(8);
+		Vet vet = this.vets.findById(6);
+		WorkingHour time = this.visits.findWorkingHours().get(0);
+		// the months are kept in memory before another instance books the second week
+		this.availability.getMonths(6, YearMonth.from(monday), YearMonth.from(monday.plusWeeks(1)));
+		Visit taken = new Visit();
+		this.pets.findById(8).addVisit(taken);
+		taken.setDescription("taken");
+		taken.setVet(vet);
+		taken.setDate(monday.plusWeeks(1));
+		taken.setTime(time);
+		this.visits.save(taken);
+
+		Visit visit = new Visit();
+		this.pets.findById(7).addVisit(visit);
+		visit.setDescription("physiotherapy");
+		visit.setVet(vet);
+		visit.setDate(monday);
+		visit.setTime(time);
+		Recurrence recurrence = new Recurrence();
+		recurrence.setCount(2);
+		VisitSeries series = this.seriesBooking.book(visit, recurrence);
+
+		assertThat(series.getBooked()).containsExactly(monday);
+		assertThat(series.getRejected()).extracting(VisitSeries.Rejection::getDate)
+				.containsExactly(monday.plusWeeks(1));
+	}
+
 	@Test
 	void shouldFindVisitsByPetId() throws Exception {
 		Collection<Visit> visits = this.visits.findByPetId(7);
@@ -234,4 +498,111 @@ class ClinicServiceTests {
 		assertThat(visitArr[0].getPet().getId()).isEqualTo(7);
 	}
 
+	@Test
+	void shouldFindBookedSlotsOfVet() {
+		List<VisitRepository.BookedSlot> booked = this.visits.findBookedSlots(2, LocalDate.of(2013, 1, 1),
+				LocalDate.of(2013, 1, 31));
+		assertThat(booked).extracting(VisitRepository.BookedSlot::getDate)
+				.containsExactlyInAnyOrder(LocalDate.of(2013, 1, 1), LocalDate.of(2013, 1, 3));
+		assertThat(booked).extracting(VisitRepository.BookedSlot::getStartMinute).containsExactlyInAnyOrder(480, 1020);
+		assertThat(booked).extracting(VisitRepository.BookedSlot::getDuration).containsOnly(60);
+
+		assertThat(this.visits.findBookedSlots(2, LocalDate.of(2013, 1, 2), LocalDate.of(2013, 1, 2))).isEmpty();
+	}
+
+	@Test
+	void shouldFindWorkingHoursWithStartAndDuration() {
+		WorkingHour eight = this.visits.findWorkingHours().stream().filter(wh -> wh.getId() == 1).findFirst().get();
+		assertThat(eight.getStart()).isEqualTo(LocalTime.of(8, 0));
+		assertThat(eight.getEndMinute()).isEqualTo(9 * 60);
+	}
+
+	@Test
+	void shouldFindVisitsOfPetInWindows() {
+		Slice<VisitRepository.PetVisit> visits = this.visits.findSliceByPetId(6, 7, PageRequest.of(0, 1));
+		assertThat(visits.getContent()).extracting(VisitRepository.PetVisit::getId).containsExactly(4);
+		assertThat(visits.getContent().get(0).getVet()).isEqualTo("Henry Stevens");
+		assertThat(visits.hasNext()).isTrue();
+		assertThat(this.visits.findSliceByPetId(6, 7, PageRequest.of(1, 1)).getContent())
+				.extracting(VisitRepository.PetVisit::getTime).containsExactly("8:00 am");
+		// the pet of another owner
+		assertThat(this.visits.findSliceByPetId(1, 7, PageRequest.of(0, 1))).isEmpty();
+	}
+
+	@Test
+	@Transactional
+	void shouldFindVisitHistoryOfVetInWindows() {
+		addVisitsForNewOwners(this.vets.findById(2), 12);
+		LocalDate today = LocalDate.now();
+
+		Statistics statistics = clearAndResetStatistics();
+		Slice<VisitRepository.VetVisit> upcoming = this.visits.findUpcomingByVetId(2, today, PageRequest.of(0, 5));
+		assertThat(upcoming.getContent()).hasSize(5);
+		assertThat(upcoming.hasNext()).isTrue();
+		List<Integer> starts = upcoming.map(VisitRepository.VetVisit::getStartMinute).getContent();
+		assertThat(starts).containsExactly(480, 540, 600, 660, 720);
+		assertThat(upcoming.getContent()).allSatisfy(visit -> {
+			assertThat(visit.getDate()).isEqualTo(today);
+			assertThat(visit.getOwnerLastName()).isEqualTo("Visitor");
+		});
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+		Slice<VisitRepository.VetVisit> later = this.visits.findUpcomingByVetId(2, today, PageRequest.of(2, 5));
+		assertThat(later.getContent()).extracting(VisitRepository.VetVisit::getDate).containsOnly(today.plusDays(1));
+		assertThat(later.hasNext()).isFalse();
+
+		Slice<VisitRepository.VetVisit> past = this.visits.findPastByVetId(2, today, PageRequest.of(0, 5));
+		assertThat(past.getContent()).extracting(VisitRepository.VetVisit::getId).containsExactly(3, 1);
+		assertThat(past.getContent().get(0).getTime()).isEqualTo("5:00 pm");
+		assertThat(past.getContent().get(0).getPetName()).isEqualTo("Max");
+	}
+
+	@Test
+	@Transactional
+	void shouldFindVisitsByPetIdWithSingleStatement() {
+		Statistics statistics = clearAndResetStatistics();
+		Collection<Visit> visits = this.visits.findByPetId(7);
+		assertThat(visits).hasSize(2);
+		assertThat(visits).allSatisfy(visit -> assertThat(visit.getTime()).isNotNull());
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	private void addVisitsForNewOwners(Vet vet, int count) {
+		List<PetType> types = this.pets.findPetTypes();
+		List<WorkingHour> hours = this.visits.findWorkingHours();
+		for (int i = 0; i < count; i++) {
+			Owner owner = new Owner();
+			owner.setFirstName("Owner" + i);
+			owner.setLastName("Visitor");
+			owner.setAddress("4, Evans Street");
+			owner.setCity("Wollongong");
+			owner.setTelephone("4444444444");
+			this.owners.save(owner);
+
+			Pet pet = new Pet();
+			pet.setName("pet" + i);
+			pet.setBirthDate(LocalDate.now());
+			pet.setType(types.get(i % types.size()));
+			owner.addPet(pet);
+			this.pets.save(pet);
+
+			Visit visit = new Visit();
+			visit.setDescription("check-up");
+			visit.setDate(LocalDate.now().plusDays(i / hours.size()));
+			visit.setTime(hours.get(i % hours.size()));
+			visit.setVet(vet);
+			pet.addVisit(visit);
+			this.visits.save(visit);
+		}
+	}
+
+	private Statistics clearAndResetStatistics() {
+		this.entityManager.flush();
+		this.entityManager.clear();
+		Statistics statistics = this.entityManager.getEntityManagerFactory().unwrap(SessionFactory.class)
+				.getStatistics();
+		statistics.clear();
+		return statistics;
+	}
+
 }
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.samples.petclinic.model.NamedEntity;
+import org.springframework.samples.petclinic.owner.PetRepository;
+import org.springframework.samples.petclinic.owner.PetType;
+import org.springframework.samples.petclinic.vet.Specialty;
+import org.springframework.samples.petclinic.vet.Vet;
+import org.springframework.samples.petclinic.vet.VetRepository;
+import org.springframework.samples.petclinic.visit.VisitRepository;
+import org.springframework.samples.petclinic.visit.WorkingHour;
+
+/**
+ * Test class for {@link ReferenceData}
+ */
+class ReferenceDataTests {
+
+	private VetRepository vets;
+
+	private PetRepository pets;
+
+	private VisitRepository visits;
+
+	private ReferenceData referenceData;
+
+	@BeforeEach
+	void setup() {
+		this.vets = mock(VetRepository.class);
+		this.pets = mock(PetRepository.class);
+		this.visits = mock(VisitRepository.class);
+		Vet vet = new Vet();
+		vet.setId(1);
+		vet.setFirstName("James");
+		vet.setLastName("Carter");
+		given(this.vets.findAll()).willReturn(Collections.singletonList(vet));
+		given(this.vets.findSpecialties()).willReturn(Arrays.asList(named(new Specialty(), 1, "radiology")));
+		given(this.pets.findPetTypes())
+				.willReturn(Arrays.asList(named(new PetType(), 1, "cat"), named(new PetType(), 2, "dog")));
+		given(this.visits.findWorkingHours()).willReturn(Arrays.asList(named(new WorkingHour(), 1, "09:00")));
+		this.referenceData = new ReferenceData(this.vets, this.pets, this.visits);
+	}
+
+	@Test
+	void shouldResolveByIdAndNameAfterSingleLoad() {
+		assertThat(this.referenceData.findVet(1).getLastName()).isEqualTo("Carter");
+		assertThat(this.referenceData.findPetType(2).getName()).isEqualTo("dog");
+		assertThat(this.referenceData.findPetType("cat").getId()).isEqualTo(1);
+		assertThat(this.referenceData.findPetType("Cat").getId()).isEqualTo(1);
+		assertThat(this.referenceData.findSpecialty("radiology").getId()).isEqualTo(1);
+		assertThat(this.referenceData.findWorkingHour(1).getName()).isEqualTo("09:00");
+		assertThat(this.referenceData.findVet(2)).isNull();
+		assertThat(this.referenceData.findSpecialty("dentistry")).isNull();
+		verify(this.vets, times(1)).findAll();
+		verify(this.pets, times(1)).findPetTypes();
+	}
+
+	@Test
+	void shouldReloadAfterChange() {
+		this.referenceData.findVet(1);
+		this.referenceData.onChange(new ReferenceDataChangedEvent(Vet.class));
+		this.referenceData.findVet(1);
+		verify(this.vets, times(2)).findAll();
+	}
+
+	private static <T extends NamedEntity> T named(T entity, int id, String name) {
+		entity.setId(id);
+		entity.setName(name);
+		return entity;
+	}
+
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.vet;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.owner.PetRepository;
+import org.springframework.samples.petclinic.system.ReferenceData;
+import org.springframework.samples.petclinic.visit.SlotAvailability;
+import org.springframework.samples.petclinic.visit.SlotHolds;
+import org.springframework.samples.petclinic.visit.VisitRepository;
+import org.springframework.samples.petclinic.visit.WorkingHour;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Test class for {@link FreeSlotController}
+ */
+@WebMvcTest(FreeSlotController.class)
+@Import({ FreeSlotSearch.class, SlotAvailability.class, SlotHolds.class, ReferenceData.class })
+class FreeSlotControllerTests {
+
+	private static final LocalDate MONDAY = LocalDate.of(2030, 1, 7);
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private SlotHolds holds;
+
+	@MockBean
+	private VetRepository vets;
+
+	@MockBean
+	private PetRepository pets;
+
+	@MockBean
+	private VisitRepository visits;
+
+	@MockBean
+	private PlatformTransactionManager transactionManager;
+
+	@BeforeEach
+	void setup() {
+		Specialty surgery = specialty(2, "surgery");
+		Specialty dentistry = specialty(3, "dentistry");
+		given(this.vets.findSpecialties()).willReturn(Arrays.asList(surgery, dentistry));
+		given(this.vets.findAll()).willReturn(
+				Arrays.asList(vet(3, "Linda", dentistry), vet(2, "Helen", surgery), vet(1, "James", surgery)));
+		given(this.visits.findWorkingHours())
+				.willReturn(Arrays.asList(workingHour(1, "8:00 am", 480), workingHour(2, "9:00 am", 540)));
+		given(this.visits.findBookedSlots(anyInt(), any(LocalDate.class), any(LocalDate.class)))
+				.willReturn(Collections.emptyList());
+		VisitRepository.BookedSlot booked = new VisitRepository.BookedSlot() {
+
+			@Override
+			public LocalDate getDate() {
+				return MONDAY;
+			}
+
+			@Override
+			public Integer getStartMinute() {
+				return 480;
+			}
+
+			@Override
+			public Integer getDuration() {
+				return 60;
+			}
+
+		};
+		given(this.visits.findBookedSlots(1, MONDAY.withDayOfMonth(1), MONDAY.withDayOfMonth(31)))
+				.willReturn(Collections.singletonList(booked));
+	}
+
+	@Test
+	void testFindEarliestSlotsSkippingWeekendAndBookings() throws Exception {
+		mockMvc.perform(get("/vets/free-slots").param("specialty", "surgery").param("from", "2030-01-05")
+				.param("limit", "3").accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk())
+				.andExpect(jsonPath("$", hasSize(3)))
+				.andExpect(jsonPath("$[*].date", contains("2030-01-07", "2030-01-07", "2030-01-07")))
+				.andExpect(jsonPath("$[*].time", contains("8:00 am", "9:00 am", "9:00 am")))
+				.andExpect(jsonPath("$[*].vetId", contains(2, 1, 2)));
+	}
+
+	@Test
+	void testFindSlotsNotHeldByOthers() throws Exception {
+		this.holds.hold(2, MONDAY, 540, 600, null);
+		mockMvc.perform(get("/vets/free-slots").param("specialty", "surgery").param("from", "2030-01-07")
+				.param("days", "1").accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk())
+				.andExpect(jsonPath("$[*].vetId", contains(2, 1)));
+	}
+
+	@Test
+	void testLoadBookingsOncePerVetBeyondKeptMonths() throws Exception {
+		mockMvc.perform(get("/vets/free-slots").param("specialty", "surgery").param("from", "2040-01-02")
+				.param("days", "92").param("limit", "100").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk());
+		verify(this.visits).findBookedSlots(1, LocalDate.of(2040, 1, 1), LocalDate.of(2040, 4, 30));
+		verify(this.visits).findBookedSlots(2, LocalDate.of(2040, 1, 1), LocalDate.of(2040, 4, 30));
+		verify(this.visits, times(2)).findBookedSlots(anyInt(), any(LocalDate.class), any(LocalDate.class));
+	}
+
+	@Test
+	void testUnknownSpecialty() throws Exception {
+		mockMvc.perform(get("/vets/free-slots").param("specialty", "juggling").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isNotFound());
+	}
+
+	private static Vet vet(int id, String firstName, Specialty specialty) {
+		Vet vet = new Vet();
+		vet.setId(id);
+		vet.setFirstName(firstName);
+		vet.setLastName("Vet");
+		vet.addSpecialty(specialty);
+		return vet;
+	}
+
+	private static Specialty specialty(int id, String name) {
+		Specialty specialty = new Specialty();
+		specialty.setId(id);
+		specialty.setName(name);
+		return specialty;
+	}
+
+	private static WorkingHour workingHour(int id, String name, int startMinute) {
+		WorkingHour workingHour = new WorkingHour();
+		workingHour.setId(id);
+		workingHour.setName(name);
+		workingHour.setStartMinute(startMinute);
+		return workingHour;
+	}
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.vet;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.owner.PetRepository;
+import org.springframework.samples.petclinic.system.ReferenceData;
+import org.springframework.samples.petclinic.visit.SlotAvailability;
+import org.springframework.samples.petclinic.visit.VisitRepository;
+import org.springframework.samples.petclinic.visit.WorkingHour;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Test class for {@link VetAvailabilityController}
+ */
+@WebMvcTest(VetAvailabilityController.class)
+@Import({ SlotAvailability.class, ReferenceData.class })
+class VetAvailabilityControllerTests {
+
+	private static final YearMonth MONTH = YearMonth.now().plusMonths(1);
+
+	private static final List<LocalDate> WORKING_DAYS = Stream.iterate(MONTH.atDay(1), day -> day.plusDays(1))
+			.limit(MONTH.lengthOfMonth()).filter(WorkingHour::isWorkingDay).collect(Collectors.toList());
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockBean
+	private VetRepository vets;
+
+	@MockBean
+	private PetRepository pets;
+
+	@MockBean
+	private VisitRepository visits;
+
+	@MockBean
+	private PlatformTransactionManager transactionManager;
+
+	@BeforeEach
+	void setup() {
+		Vet vet = new Vet();
+		vet.setId(1);
+		given(this.vets.findAll()).willReturn(Collections.singletonList(vet));
+		given(this.visits.findWorkingHours())
+				.willReturn(Arrays.asList(workingHour(1, "8:00 am", 480), workingHour(2, "9:00 am", 540)));
+		VisitRepository.BookedSlot booked = new VisitRepository.BookedSlot() {
+
+			@Override
+			public LocalDate getDate() {
+				return WORKING_DAYS.get(1);
+			}
+
+			@Override
+			public Integer getStartMinute() {
+				return 540;
+			}
+
+			@Override
+			public Integer getDuration() {
+				return 60;
+			}
+
+		};
+		given(this.visits.findBookedSlots(1, MONTH.atDay(1), MONTH.atEndOfMonth()))
+				.willReturn(Collections.singletonList(booked));
+	}
+
+	@Test
+	void testShowAvailability() throws Exception {
+		mockMvc.perform(get("/vets/{vetId}/availability", 1).param("month", MONTH.toString())
+				.accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk())
+				.andExpect(jsonPath("$.month").value(MONTH.toString()))
+				.andExpect(jsonPath("$.days", hasSize(WORKING_DAYS.size())))
+				.andExpect(jsonPath("$.days[1].date").value(WORKING_DAYS.get(1).toString()))
+				.andExpect(jsonPath("$.days[1].dayOfWeek").value(WORKING_DAYS.get(1).getDayOfWeek().name()))
+				.andExpect(jsonPath("$.days[1].free[*].name").value("8:00 am"))
+				.andExpect(jsonPath("$.days[1].booked[*].id").value(2))
+				.andExpect(jsonPath("$.days[0].free", hasSize(2)));
+	}
+
+	@Test
+	void testShowAvailabilityOfUnknownVet() throws Exception {
+		mockMvc.perform(get("/vets/{vetId}/availability", 99).param("month", MONTH.toString()))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void testShowAvailabilityOutOfRange() throws Exception {
+		mockMvc.perform(get("/vets/{vetId}/availability", 1).param("month", "9999-12"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/vets/{vetId}/availability", 1).param("month", "0001-01"))
+				.andExpect(status().isBadRequest());
+		verify(this.visits, never()).findBookedSlots(any(Integer.class), any(LocalDate.class), any(LocalDate.class));
+	}
+
+	private static WorkingHour workingHour(int id, String name, int startMinute) {
+		WorkingHour workingHour = new WorkingHour();
+		workingHour.setId(id);
+		workingHour.setName(name);
+		workingHour.setStartMinute(startMinute);
+		return workingHour;
+	}
+
+}
@@ -16,7 +16,12 @@
 
 package org.springframework.samples.petclinic.vet;
 
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasProperty;
+import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -28,9 +33,18 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.samples.petclinic.model.Keyset;
 import org.springframework.samples.petclinic.visit.VisitRepository;
+import org.springframework.samples.petclinic.visit.VisitRepository.VetVisit;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
@@ -56,6 +70,7 @@ class VetControllerTests {
 
 	@BeforeEach
 	void setup() {
+		given(this.vets.findWithSpecialtiesInOrder(anyList())).willCallRealMethod();
 		james = new Vet();
 		james.setFirstName("James");
 		james.setLastName("Carter");
@@ -69,14 +84,51 @@ class VetControllerTests {
 		radiology.setName("radiology");
 		helen.addSpecialty(radiology);
 		given(this.vets.findAll()).willReturn(Lists.newArrayList(james, helen));
-		given(this.vets.findAll(any(Pageable.class))).willReturn(new PageImpl<Vet>(Lists.newArrayList(james, helen)));
+		given(this.vets.findAllIds(any(Pageable.class))).willReturn(new PageImpl<Integer>(Lists.newArrayList(1, 2)));
+		// vets come back from the IN query in no particular order
+		given(this.vets.findWithSpecialtiesByIdIn(Lists.newArrayList(1, 2)))
+				.willReturn(Lists.newArrayList(helen, james));
 
 	}
 
 	@Test
 	void testShowResourcesVetList() throws Exception {
 		mockMvc.perform(MockMvcRequestBuilders.get("/vets?page=1")).andExpect(status().isOk())
-			.andExpect(model().attributeExists("listVets")).andExpect(view().name("vets/vetList"));
+				.andExpect(model().attribute("listVets", contains(james, helen)))
+				.andExpect(view().name("vets/vetList"));
+	}
+
+	@Test
+	void testShowVetListKeyset() throws Exception {
+		given(this.vets.findIdsAfter(any(), any(), any(Pageable.class))).willReturn(Lists.newArrayList(1, 2));
+		mockMvc.perform(MockMvcRequestBuilders.get("/vets").param("after", Keyset.of(helen).encode()))
+				.andExpect(status().isOk()).andExpect(model().attribute("listVets", contains(james, helen)))
+				.andExpect(model().attribute("keyset", hasProperty("previousToken", is(Keyset.of(james).encode()))))
+				.andExpect(view().name("vets/vetList"));
+	}
+
+	@Test
+	void testShowVetWithVisitWindows() throws Exception {
+		given(this.vets.findById(2)).willReturn(helen);
+		Map<String, Object> visit = new HashMap<>();
+		visit.put("id", 9);
+		visit.put("date", LocalDate.now().plusDays(1));
+		visit.put("startMinute", 540);
+		visit.put("duration", 30);
+		visit.put("petName", "Leo");
+		visit.put("ownerId", 1);
+		visit.put("ownerFirstName", "George");
+		visit.put("ownerLastName", "Franklin");
+		visit.put("description", "check-up");
+		VetVisit upcoming = new SpelAwareProxyProjectionFactory().createProjection(VetVisit.class, visit);
+		given(this.visits.findUpcomingByVetId(eq(2), any(LocalDate.class), eq(PageRequest.of(0, 10))))
+				.willReturn(new SliceImpl<>(Collections.singletonList(upcoming), PageRequest.of(0, 10), true));
+		given(this.visits.findPastByVetId(eq(2), any(LocalDate.class), eq(PageRequest.of(1, 10))))
+				.willReturn(new SliceImpl<>(Collections.emptyList(), PageRequest.of(1, 10), false));
+		mockMvc.perform(MockMvcRequestBuilders.get("/vets/{vetId}", 2).param("past", "1")).andExpect(status().isOk())
+				.andExpect(model().attribute("upcomingVisits", contains(upcoming)))
+				.andExpect(model().attribute("pastVisits", hasProperty("number", is(1))))
+				.andExpect(view().name("vets/vetDetails"));
 	}
 
 }
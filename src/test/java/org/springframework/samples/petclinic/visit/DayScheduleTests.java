@@ -0,0 +1,57 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.visit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link DaySchedule}
+ */
+class DayScheduleTests {
+
+	@Test
+	void shouldFindOverlapsButNotTouchingIntervals() {
+		DaySchedule schedule = DaySchedule.EMPTY.with(600, 660).with(480, 540);
+
+		assertThat(schedule.overlaps(540, 600)).isFalse();
+		assertThat(schedule.overlaps(530, 545)).isTrue();
+		assertThat(schedule.overlaps(420, 900)).isTrue();
+		assertThat(schedule.overlaps(659, 700)).isTrue();
+		assertThat(schedule.overlaps(660, 720)).isFalse();
+		assertThat(DaySchedule.EMPTY.overlaps(0, 1440)).isFalse();
+	}
+
+	@Test
+	void shouldSeeLongBookingBehindLaterShorterOnes() {
+		// overlapping bookings can only come from the database, but must still be seen
+		DaySchedule schedule = DaySchedule.EMPTY.with(480, 720).with(500, 510).with(600, 615);
+
+		assertThat(schedule.overlaps(700, 705)).isTrue();
+		assertThat(schedule.overlaps(720, 730)).isFalse();
+	}
+
+	@Test
+	void shouldRemoveOnlyTheGivenInterval() {
+		DaySchedule schedule = DaySchedule.EMPTY.with(480, 540).with(480, 600).without(480, 600);
+
+		assertThat(schedule.size()).isEqualTo(1);
+		assertThat(schedule.overlaps(540, 600)).isFalse();
+		assertThat(schedule.without(900, 960)).isSameAs(schedule);
+	}
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.visit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link Recurrence}
+ */
+class RecurrenceTests {
+
+	private static final LocalDate MONDAY = LocalDate.of(2030, 1, 7);
+
+	@Test
+	void shouldRepeatWeeklyCountTimes() {
+		Recurrence recurrence = new Recurrence();
+		recurrence.setCount(3);
+		assertThat(recurrence.expand(MONDAY)).containsExactly(MONDAY, MONDAY.plusWeeks(1), MONDAY.plusWeeks(2));
+	}
+
+	@Test
+	void shouldRepeatBiweeklyUntilLastDay() {
+		Recurrence recurrence = new Recurrence();
+		recurrence.setFrequency(Recurrence.Frequency.BIWEEKLY);
+		recurrence.setUntil(MONDAY.plusWeeks(5));
+		assertThat(recurrence.expand(MONDAY)).containsExactly(MONDAY, MONDAY.plusWeeks(2), MONDAY.plusWeeks(4));
+	}
+
+	@Test
+	void shouldStopAtWhicheverComesFirst() {
+		Recurrence recurrence = new Recurrence();
+		recurrence.setCount(10);
+		recurrence.setUntil(MONDAY.plusDays(8));
+		assertThat(recurrence.expand(MONDAY)).hasSize(2);
+		recurrence.setCount(null);
+		recurrence.setUntil(null);
+		assertThat(recurrence.expand(MONDAY)).hasSize(Recurrence.MAX_OCCURRENCES);
+	}
+
+}
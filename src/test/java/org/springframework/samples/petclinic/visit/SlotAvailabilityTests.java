@@ -0,0 +1,226 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.visit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.samples.petclinic.vet.Vet;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Test class for {@link SlotAvailability}
+ */
+class SlotAvailabilityTests {
+
+	private static final LocalDate DAY = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+
+	private VisitRepository visits;
+
+	private SlotAvailability availability;
+
+	private WorkingHour eight;
+
+	private WorkingHour nine;
+
+	private Vet vet;
+
+	@BeforeEach
+	void setup() {
+		this.visits = mock(VisitRepository.class);
+		this.eight = workingHour(1, "8:00 am", 480);
+		this.nine = workingHour(2, "9:00 am", 540);
+		given(this.visits.findWorkingHours()).willReturn(Arrays.asList(this.nine, this.eight));
+		given(this.visits.findBookedSlots(eq(1), any(LocalDate.class), any(LocalDate.class)))
+				.willReturn(Collections.emptyList());
+		this.vet = new Vet();
+		this.vet.setId(1);
+		this.availability = availability();
+	}
+
+	@Test
+	void shouldOrderSlotsByStartThenId() {
+		assertThat(this.availability.getSlots()).containsExactly(this.eight, this.nine);
+	}
+
+	@Test
+	void shouldOrderSlotsByStartTime() {
+		WorkingHour seven = workingHour(3, "7:00 am", 420);
+		given(this.visits.findWorkingHours()).willReturn(Arrays.asList(this.nine, seven, this.eight));
+
+		assertThat(availability().getSlots()).containsExactly(seven, this.eight, this.nine);
+	}
+
+	@Test
+	void shouldLoadMonthOnceAndTrackBookings() {
+		Visit visit = visit(this.eight);
+		this.availability.book(visit);
+
+		assertThat(this.availability.findFreeSlots(1, DAY)).containsExactly(this.nine);
+		assertThat(this.availability.findFreeSlots(1, DAY.plusDays(1))).containsExactly(this.eight, this.nine);
+		verify(this.visits, times(1)).findBookedSlots(1, DAY.withDayOfMonth(1), YearMonth.from(DAY).atEndOfMonth());
+
+		assertThatExceptionOfType(DuplicateKeyException.class)
+				.isThrownBy(() -> this.availability.book(visit(this.eight)));
+		verify(this.visits, times(1)).save(any(Visit.class));
+	}
+
+	@Test
+	void shouldNotKeepMonthsOutsideWindow() {
+		LocalDate later = DAY.plusMonths(13);
+		Visit visit = visit(this.eight);
+		visit.setDate(later);
+		this.availability.book(visit);
+		this.availability.findFreeSlots(1, later);
+
+		verify(this.visits, times(2)).findBookedSlots(1, later.withDayOfMonth(1), YearMonth.from(later).atEndOfMonth());
+	}
+
+	@Test
+	void shouldFreeSlotOnCancel() {
+		Visit visit = visit(this.nine);
+		this.availability.book(visit);
+		given(this.visits.findById(5)).willReturn(visit);
+
+		this.availability.cancel(5);
+
+		verify(this.visits).deleteById(5);
+		assertThat(this.availability.isFree(1, DAY, this.nine)).isTrue();
+	}
+
+	@Test
+	void shouldReleaseIntervalWhenSaveFails() {
+		willThrow(new DataIntegrityViolationException("fk_visits_pets")).given(this.visits).save(any(Visit.class));
+
+		assertThatExceptionOfType(DataIntegrityViolationException.class)
+				.isThrownBy(() -> this.availability.book(visit(this.eight)));
+		assertThat(this.availability.isFree(1, DAY, this.eight)).isTrue();
+		verify(this.visits, times(1)).findBookedSlots(1, DAY.withDayOfMonth(1), YearMonth.from(DAY).atEndOfMonth());
+		verify(this.visits, never()).deleteById(any());
+	}
+
+	@Test
+	void shouldRefuseVisitOverlappingCommittedVisit() {
+		this.availability.isFree(1, DAY, this.eight);
+		// booked by another instance after the month was loaded here
+		VisitRepository.BookedSlot committed = mock(VisitRepository.BookedSlot.class);
+		given(committed.getDate()).willReturn(DAY);
+		given(committed.getStartMinute()).willReturn(450);
+		given(committed.getDuration()).willReturn(60);
+		given(this.visits.findBookedSlots(1, DAY, DAY)).willReturn(Collections.singletonList(committed));
+
+		assertThatExceptionOfType(DuplicateKeyException.class)
+				.isThrownBy(() -> this.availability.book(visit(this.eight)));
+		verify(this.visits).lockVet(1);
+		verify(this.visits, never()).save(any(Visit.class));
+		assertThat(this.availability.isFree(1, DAY, this.eight)).isTrue();
+	}
+
+	@Test
+	void shouldRefuseVisitsOverlappingLongerVisit() {
+		Visit surgery = visit(this.eight);
+		surgery.setDuration(120);
+		this.availability.book(surgery);
+
+		assertThat(this.availability.findFreeSlots(1, DAY)).isEmpty();
+		Visit vaccination = visit(null);
+		vaccination.setStartMinute(8 * 60 + 30);
+		vaccination.setDuration(15);
+		assertThatExceptionOfType(DuplicateKeyException.class).isThrownBy(() -> this.availability.book(vaccination));
+		vaccination.setStartMinute(10 * 60);
+		this.availability.book(vaccination);
+		verify(this.visits, times(2)).save(any(Visit.class));
+	}
+
+	@Test
+	void shouldOfferOnlySlotsFittingDuration() {
+		this.availability.book(visit(this.nine));
+
+		assertThat(this.availability.findFreeSlots(1, DAY, 30)).containsExactly(this.eight);
+		assertThat(this.availability.findFreeSlots(1, DAY, 90)).isEmpty();
+	}
+
+	@Test
+	void shouldBookFirstSlotNotTakenMeanwhile() {
+		this.availability.isFree(1, DAY, this.eight);
+		willThrow(new DataIntegrityViolationException("fk_visits_pets")).willDoNothing().given(this.visits)
+				.save(any(Visit.class));
+
+		Visit visit = visit(null);
+		assertThat(this.availability.bookFirstAvailable(visit, time -> true)).isTrue();
+		assertThat(visit.getTime()).isEqualTo(this.nine);
+		verify(this.visits, times(2)).save(visit);
+	}
+
+	@Test
+	void shouldBookFirstAvailableOnlyIntoCandidateSlots() {
+		Visit visit = visit(null);
+		assertThat(this.availability.bookFirstAvailable(visit, time -> !time.equals(this.eight))).isTrue();
+		assertThat(visit.getTime()).isEqualTo(this.nine);
+	}
+
+	@Test
+	void shouldNotBookFirstAvailableInsideLongerVisit() {
+		Visit surgery = visit(this.eight);
+		surgery.setDuration(180);
+		this.availability.book(surgery);
+
+		Visit visit = visit(null);
+		assertThat(this.availability.bookFirstAvailable(visit, time -> true)).isFalse();
+		assertThat(visit.getTime()).isNull();
+		verify(this.visits).save(any(Visit.class));
+	}
+
+	private SlotAvailability availability() {
+		return new SlotAvailability(this.visits, Optional.empty(), mock(PlatformTransactionManager.class), 12);
+	}
+
+	private Visit visit(WorkingHour time) {
+		Visit visit = new Visit();
+		visit.setVet(this.vet);
+		visit.setDate(DAY);
+		visit.setTime(time);
+		return visit;
+	}
+
+	private static WorkingHour workingHour(int id, String name, int startMinute) {
+		WorkingHour workingHour = new WorkingHour();
+		workingHour.setId(id);
+		workingHour.setName(name);
+		workingHour.setStartMinute(startMinute);
+		return workingHour;
+	}
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.visit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link SlotHolds}
+ */
+class SlotHoldsTests {
+
+	private static final LocalDate DAY = LocalDate.of(2030, 1, 7);
+
+	private final AtomicLong now = new AtomicLong(1000);
+
+	private SlotHolds holds;
+
+	@BeforeEach
+	void setup() {
+		this.holds = new SlotHolds(Duration.ofMinutes(5), this.now::get);
+	}
+
+	@Test
+	void shouldGrantHoldToFirstCallerOnly() {
+		String token = this.holds.hold(1, DAY, 480, 540, null);
+		assertThat(token).isNotNull();
+		assertThat(this.holds.hold(1, DAY, 480, 540, null)).isNull();
+		assertThat(this.holds.hold(1, DAY, 480, 540, token)).isEqualTo(token);
+		assertThat(this.holds.hold(2, DAY, 480, 540, null)).isNotNull();
+		assertThat(this.holds.isHeldByOther(1, DAY, 480, 540, null)).isTrue();
+		assertThat(this.holds.isHeldByOther(1, DAY, 480, 540, token)).isFalse();
+	}
+
+	@Test
+	void shouldRefuseIntervalOverlappingHold() {
+		this.holds.hold(1, DAY, 480, 540, null);
+		assertThat(this.holds.isHeldByOther(1, DAY, 450, 540, null)).isTrue();
+		assertThat(this.holds.isHeldByOther(1, DAY, 510, 600, null)).isTrue();
+		assertThat(this.holds.hold(1, DAY, 420, 510, null)).isNull();
+		assertThat(this.holds.isHeldByOther(1, DAY, 420, 480, null)).isFalse();
+		assertThat(this.holds.hold(1, DAY, 540, 630, null)).isNotNull();
+	}
+
+	@Test
+	void shouldLetHoldExpire() {
+		this.holds.hold(1, DAY, 480, 540, null);
+		this.now.addAndGet(Duration.ofMinutes(5).toMillis());
+		assertThat(this.holds.isHeldByOther(1, DAY, 480, 540, null)).isFalse();
+		assertThat(this.holds.hold(1, DAY, 480, 540, null)).isNotNull();
+	}
+
+	@Test
+	void shouldReleaseOnlyOwnHold() {
+		String token = this.holds.hold(1, DAY, 480, 540, null);
+		this.holds.release("someone else");
+		assertThat(this.holds.isHeldByOther(1, DAY, 480, 540, null)).isTrue();
+		this.holds.release(token);
+		assertThat(this.holds.isHeldByOther(1, DAY, 480, 540, null)).isFalse();
+	}
+
+	@Test
+	void shouldHoldOneIntervalPerToken() {
+		String token = this.holds.hold(1, DAY, 480, 540, null);
+		assertThat(this.holds.hold(1, DAY, 600, 660, token)).isEqualTo(token);
+		assertThat(this.holds.isHeldByOther(1, DAY, 480, 540, null)).isFalse();
+		assertThat(this.holds.hold(1, DAY.plusDays(1), 480, 540, token)).isEqualTo(token);
+		assertThat(this.holds.hold(2, DAY.plusDays(1), 480, 540, token)).isEqualTo(token);
+		assertThat(this.holds.isHeldByOther(1, DAY, 600, 660, null)).isFalse();
+		assertThat(this.holds.isHeldByOther(1, DAY.plusDays(1), 480, 540, null)).isFalse();
+		assertThat(this.holds.isHeldByOther(2, DAY.plusDays(1), 480, 540, null)).isTrue();
+
+		this.holds.release(token);
+		assertThat(this.holds.isHeldByOther(2, DAY.plusDays(1), 480, 540, null)).isFalse();
+	}
+
+}
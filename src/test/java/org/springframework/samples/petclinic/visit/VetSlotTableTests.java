@@ -0,0 +1,183 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.visit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.owner.Pet;
+import org.springframework.samples.petclinic.owner.PetRepository;
+import org.springframework.samples.petclinic.vet.Vet;
+import org.springframework.samples.petclinic.vet.VetRepository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Test class for {@link VetSlotTable}
+ */
+@DataJpaTest(properties = { "petclinic.visits.slot-table=true", "petclinic.visits.slot-table-days=0" })
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import(VetSlotTable.class)
+class VetSlotTableTests {
+
+	private static final LocalDate MONDAY = LocalDate.of(2031, 3, 3);
+
+	@Autowired
+	private VetSlotTable slotTable;
+
+	@Autowired
+	private VisitRepository visits;
+
+	@Autowired
+	private PetRepository pets;
+
+	@Autowired
+	private VetRepository vets;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	private JdbcTemplate jdbcTemplate;
+
+	private Pet pet;
+
+	private Vet vet;
+
+	@BeforeEach
+	void setup() {
+		this.jdbcTemplate = new JdbcTemplate(this.dataSource);
+		this.pet = this.pets.findById(7);
+		this.vet = this.vets.findById(2);
+	}
+
+	@Test
+	void shouldClaimSlotOnlyOnce() {
+		WorkingHour time = this.visits.findWorkingHours().get(0);
+		Visit visit = visit();
+		visit.setTime(time);
+		this.slotTable.book(visit);
+
+		assertThat(this.jdbcTemplate.queryForObject(
+				"SELECT visit_id FROM vet_slot WHERE vet_id = ? AND slot_date = ? AND time_id = ?", Integer.class,
+				this.vet.getId(), MONDAY, time.getId())).isEqualTo(visit.getId());
+
+		Visit clash = visit();
+		clash.setTime(time);
+		assertThatExceptionOfType(DuplicateKeyException.class).isThrownBy(() -> this.slotTable.book(clash));
+	}
+
+	@Test
+	void shouldFreeSlotOnCancel() {
+		WorkingHour time = this.visits.findWorkingHours().get(0);
+		Visit visit = visit();
+		visit.setTime(time);
+		this.slotTable.book(visit);
+
+		this.visits.deleteById(visit.getId());
+		// the delete would otherwise only be flushed after the next insert
+		this.entityManager.flush();
+		Visit rebooked = visit();
+		rebooked.setTime(time);
+		this.slotTable.book(rebooked);
+		assertThat(this.jdbcTemplate.queryForObject(
+				"SELECT visit_id FROM vet_slot WHERE vet_id = ? AND slot_date = ? AND time_id = ?", Integer.class,
+				this.vet.getId(), MONDAY, time.getId())).isEqualTo(rebooked.getId());
+	}
+
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	void shouldGenerateSlotsTakenByOverlappingVisits() {
+		LocalDate day = MONDAY.plusWeeks(1);
+		// written before the day had slots: two visits from the 8:00 am slot, and one
+		// booked at a custom time inside the 9:00 am slot
+		String insert = "INSERT INTO visits (id, pet_id, vet_id, visit_date, time_id, description, start_minute, "
+				+ "duration) VALUES (?, 7, ?, ?, ?, 'check-up', ?, 30)";
+		this.jdbcTemplate.update(insert, 9001, this.vet.getId(), day, 1, 480);
+		this.jdbcTemplate.update(insert, 9002, this.vet.getId(), day, 1, 510);
+		this.jdbcTemplate.update(insert, 9003, this.vet.getId(), day, null, 570);
+		try {
+			Visit visit = visit();
+			visit.setDate(day);
+			visit.setTime(this.visits.findWorkingHours().get(2));
+			this.slotTable.book(visit);
+
+			String slot = "SELECT visit_id FROM vet_slot WHERE vet_id = ? AND slot_date = ? AND time_id = ?";
+			assertThat(this.jdbcTemplate.queryForObject(slot, Integer.class, this.vet.getId(), day, 1)).isEqualTo(9001);
+			assertThat(this.jdbcTemplate.queryForObject(slot, Integer.class, this.vet.getId(), day, 2)).isEqualTo(9003);
+			assertThat(this.jdbcTemplate.queryForObject(slot, Integer.class, this.vet.getId(), day, 3))
+					.isEqualTo(visit.getId());
+		}
+		finally {
+			this.jdbcTemplate.update("DELETE FROM vet_slot WHERE slot_date = ?", day);
+			this.jdbcTemplate.update("DELETE FROM visits WHERE visit_date = ?", day);
+		}
+	}
+
+	@Test
+	void shouldSkipLockedRowsOnlyWhereSupported() throws SQLException {
+		assertThat(VetSlotTable.supportsSkipLocked(metaData("MySQL", 5, 7))).isFalse();
+		assertThat(VetSlotTable.supportsSkipLocked(metaData("MySQL", 8, 0))).isTrue();
+		assertThat(VetSlotTable.supportsSkipLocked(metaData("PostgreSQL", 9, 4))).isFalse();
+		assertThat(VetSlotTable.supportsSkipLocked(metaData("PostgreSQL", 9, 5))).isTrue();
+		assertThat(VetSlotTable.supportsSkipLocked(metaData("PostgreSQL", 13, 0))).isTrue();
+		assertThat(VetSlotTable.supportsSkipLocked(metaData("H2", 1, 4))).isFalse();
+	}
+
+	@Test
+	void shouldNotGenerateSlotsForWeekends() {
+		Visit visit = visit();
+		visit.setDate(MONDAY.minusDays(1));
+		visit.setTime(this.visits.findWorkingHours().get(0));
+		assertThatExceptionOfType(DuplicateKeyException.class).isThrownBy(() -> this.slotTable.book(visit));
+	}
+
+	private Visit visit() {
+		Visit visit = new Visit();
+		visit.setPet(this.pet);
+		visit.setVet(this.vet);
+		visit.setDate(MONDAY);
+		visit.setDescription("check-up");
+		return visit;
+	}
+
+	private static DatabaseMetaData metaData(String product, int major, int minor) throws SQLException {
+		DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+		given(metaData.getDatabaseProductName()).willReturn(product);
+		given(metaData.getDatabaseMajorVersion()).willReturn(major);
+		given(metaData.getDatabaseMinorVersion()).willReturn(minor);
+		return metaData;
+	}
+
+}
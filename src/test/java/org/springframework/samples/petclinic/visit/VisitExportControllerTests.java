@@ -0,0 +1,75 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.visit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+/**
+ * Test class for {@link VisitExportController}
+ */
+@WebMvcTest(VisitExportController.class)
+class VisitExportControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockBean
+	private VisitExport export;
+
+	@Test
+	void testExportStreamsNdjson() throws Exception {
+		willAnswer(invocation -> {
+			invocation.getArgument(4, OutputStream.class).write("{\"visit_id\":1}\n".getBytes(StandardCharsets.UTF_8));
+			return null;
+		}).given(this.export).export(eq(VisitExport.Format.NDJSON), eq(LocalDate.of(2013, 1, 1)), eq(null), eq(2),
+				any(OutputStream.class));
+		MvcResult result = mockMvc
+				.perform(get("/visits/export").param("format", "ndjson").param("from", "2013-01-01").param("vet", "2"))
+				.andExpect(request().asyncStarted()).andReturn();
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk())
+				.andExpect(content().contentType("application/x-ndjson"))
+				.andExpect(content().string("{\"visit_id\":1}\n"));
+	}
+
+	@Test
+	void testUnknownFormat() throws Exception {
+		mockMvc.perform(get("/visits/export").param("format", "xml")).andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void testInvertedRange() throws Exception {
+		mockMvc.perform(get("/visits/export").param("from", "2014-01-01").param("to", "2013-01-01"))
+				.andExpect(status().isBadRequest());
+	}
+
+}
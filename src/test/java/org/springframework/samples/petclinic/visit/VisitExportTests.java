@@ -0,0 +1,80 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.visit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Test class for {@link VisitExport}
+ */
+@DataJpaTest(properties = "petclinic.export.fetch-size=2")
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import(VisitExport.class)
+class VisitExportTests {
+
+	@Autowired
+	private VisitExport export;
+
+	@Test
+	void shouldExportAllVisitsAsCsv() throws Exception {
+		String[] lines = export(VisitExport.Format.CSV, null, null, null).split("\n");
+		assertThat(lines).hasSize(5);
+		assertThat(lines[0]).startsWith("visit_id,visit_date,start_minute,duration,working_hour,");
+		assertThat(lines[1]).isEqualTo(
+				"1,2013-01-01,480,60,\"8:00 am\",\"rabies shot\",7,\"Samantha\",\"cat\",6,\"Jean\",\"Coleman\",2,\"Helen\",\"Leary\"");
+	}
+
+	@Test
+	void shouldExportVisitsOfVetAndRangeAsNdjson() throws Exception {
+		ObjectMapper mapper = new ObjectMapper();
+		String ndjson = export(VisitExport.Format.NDJSON, LocalDate.of(2013, 1, 2), LocalDate.of(2013, 1, 4), 2);
+		List<JsonNode> visits = Arrays.stream(ndjson.split("\n")).map(line -> {
+			try {
+				return mapper.readTree(line);
+			}
+			catch (Exception ex) {
+				throw new IllegalStateException(ex);
+			}
+		}).collect(Collectors.toList());
+		assertThat(visits).hasSize(1);
+		assertThat(visits.get(0).get("visit_id").asInt()).isEqualTo(3);
+		assertThat(visits.get(0).get("visit_date").asText()).isEqualTo("2013-01-03");
+		assertThat(visits.get(0).get("pet_name").asText()).isEqualTo("Max");
+		assertThat(visits.get(0).get("working_hour").asText()).isEqualTo("5:00 pm");
+	}
+
+	private String export(VisitExport.Format format, LocalDate from, LocalDate to, Integer vetId) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		this.export.export(format, from, to, vetId, out);
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+}
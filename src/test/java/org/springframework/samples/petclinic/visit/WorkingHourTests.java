@@ -0,0 +1,43 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.visit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link WorkingHour}
+ */
+class WorkingHourTests {
+
+	@Test
+	void shouldOnlyBookFromAnHourFromNow() {
+		LocalDateTime before = LocalDateTime.now().plusHours(1);
+		int today = WorkingHour.firstBookableMinute(before.toLocalDate());
+		LocalDateTime after = LocalDateTime.now().plusHours(1);
+
+		assertThat(today).isBetween(WorkingHour.minuteOfDay(before.toLocalTime()),
+				after.toLocalDate().equals(before.toLocalDate()) ? WorkingHour.minuteOfDay(after.toLocalTime())
+						: WorkingHour.MINUTES_PER_DAY);
+		assertThat(WorkingHour.firstBookableMinute(before.toLocalDate().minusDays(1)))
+				.isEqualTo(WorkingHour.MINUTES_PER_DAY);
+		assertThat(WorkingHour.firstBookableMinute(before.toLocalDate().plusDays(1))).isZero();
+	}
+
+}